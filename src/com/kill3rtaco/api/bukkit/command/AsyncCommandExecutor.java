@@ -0,0 +1,378 @@
+package com.kill3rtaco.api.bukkit.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs commands declared with {@link BukkitCommand#async() async = true} on a
+ * bounded set of threads. A command is rejected, and the command sender is
+ * told why, if the queue is full, if the sender already has
+ * {@link AsyncCommandOptions#maxPerSender} commands waiting or running, or if
+ * the command itself is already waiting or running
+ * {@link AsyncCommandOptions#maxPerCommand} times. Commands that run longer
+ * than {@link AsyncCommandOptions#timeout} are interrupted.<br/>
+ * <br/>
+ * The threads are not tasks of the Bukkit scheduler. Executors created for a
+ * plugin are closed by
+ * {@link com.kill3rtaco.api.bukkit.plugin.TacoPlugin#onDisable()
+ * TacoPlugin.onDisable()}, like the asynchronous tasks of the plugin would be.
+ * Other executors have to be {@link #close(long) closed} by whoever created
+ * them.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Bukkit 3.1
+ * @see BukkitCommandManager#getAsyncExecutor()
+ *
+ */
+public class AsyncCommandExecutor {
+	
+	private static final Set<AsyncCommandExecutor>	OPEN		= Collections.newSetFromMap(new WeakHashMap<AsyncCommandExecutor, Boolean>());
+	
+	private Plugin									_plugin;
+	private ThreadPoolExecutor						_executor;
+	private ScheduledThreadPoolExecutor				_timer;
+	private int										_maxPerSender, _maxPerCommand;
+	private long									_timeout;
+	//commands waiting or running, by sender name and by command
+	private Map<String, Integer>					_senders	= new HashMap<String, Integer>();
+	private Map<BCommand, Integer>					_commands	= new HashMap<BCommand, Integer>();
+	private Object									_lock		= new Object();
+	private AtomicLong								_completed	= new AtomicLong(), _failed = new AtomicLong(), _rejected = new AtomicLong(),
+			_timedOut = new AtomicLong();
+	
+	/**
+	 * Create an executor that is not closed automatically
+	 * 
+	 * @param options
+	 *            the options to use
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public AsyncCommandExecutor(AsyncCommandOptions options) {
+		this(null, options);
+	}
+	
+	/**
+	 * Create an executor that is closed when the given plugin is disabled
+	 * 
+	 * @param plugin
+	 *            the plugin the commands belong to, or null to close the
+	 *            executor manually
+	 * @param options
+	 *            the options to use
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public AsyncCommandExecutor(Plugin plugin, AsyncCommandOptions options) {
+		_plugin = plugin;
+		int threads = Math.max(1, options.threads);
+		_executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, options.queueSize)), new Threads("TacoAPI-Command-Async-"));
+		//don't keep threads around on servers that rarely run asynchronous commands
+		_executor.allowCoreThreadTimeOut(true);
+		_maxPerSender = options.maxPerSender;
+		_maxPerCommand = options.maxPerCommand;
+		_timeout = options.timeout;
+		if (_timeout > 0) {
+			_timer = new ScheduledThreadPoolExecutor(1, new Threads("TacoAPI-Command-Timeout-"));
+			_timer.setRemoveOnCancelPolicy(true);
+			_timer.setKeepAliveTime(60, TimeUnit.SECONDS);
+			_timer.allowCoreThreadTimeOut(true);
+		}
+		if (plugin != null) {
+			synchronized (OPEN) {
+				OPEN.add(this);
+			}
+		}
+	}
+	
+	/**
+	 * Queue a command. If the command is rejected, the sender of the command
+	 * is told why.
+	 * 
+	 * @param command
+	 *            the command to run
+	 * @param context
+	 *            the context to run the command with
+	 * @return true if the command was queued
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public boolean submit(BCommand command, BukkitCommandContext context) {
+		String sender = context.getSender().getName();
+		synchronized (_lock) {
+			if (_maxPerSender > 0 && count(_senders, sender) >= _maxPerSender) {
+				_rejected.incrementAndGet();
+				context.printError("You already have " + _maxPerSender + " commands running, please wait for them to finish");
+				return false;
+			}
+			if (_maxPerCommand > 0 && count(_commands, command) >= _maxPerCommand) {
+				_rejected.incrementAndGet();
+				context.printError("This command is busy, please try again in a moment");
+				return false;
+			}
+			add(_senders, sender, 1);
+			add(_commands, command, 1);
+		}
+		CommandTask task = new CommandTask(command, context, sender);
+		try {
+			_executor.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			task.release();
+			_rejected.incrementAndGet();
+			context.printError(_executor.isShutdown() ? "Commands can no longer be run" : "The server is busy, please try again in a moment");
+			return false;
+		}
+	}
+	
+	private static <K> int count(Map<K, Integer> counts, K key) {
+		Integer count = counts.get(key);
+		return count == null ? 0 : count;
+	}
+	
+	//entries are removed once they reach 0, so senders that left are forgotten
+	private static <K> void add(Map<K, Integer> counts, K key, int amount) {
+		int count = count(counts, key) + amount;
+		if (count <= 0)
+			counts.remove(key);
+		else
+			counts.put(key, count);
+	}
+	
+	/**
+	 * Stop accepting commands and wait for the queued ones to finish. Commands
+	 * still running after the timeout are interrupted.
+	 * 
+	 * @param timeout
+	 *            how long to wait, in milliseconds
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public void close(long timeout) {
+		synchronized (OPEN) {
+			OPEN.remove(this);
+		}
+		_executor.shutdown();
+		try {
+			if (!_executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+				int running = _executor.getActiveCount();
+				System.out.printf("Command -> %d running and %d queued asynchronous commands were stopped%n", running, _executor.shutdownNow().size());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			_executor.shutdownNow();
+		}
+		if (_timer != null)
+			_timer.shutdownNow();
+	}
+	
+	/**
+	 * Close every executor created for a plugin. This is called by
+	 * {@link com.kill3rtaco.api.bukkit.plugin.TacoPlugin#onDisable()
+	 * TacoPlugin.onDisable()}, so that commands of a disabled plugin stop
+	 * using the Bukkit API.
+	 * 
+	 * @param plugin
+	 *            the plugin
+	 * @param timeout
+	 *            how long to wait for each executor, in milliseconds
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public static void closeAll(Plugin plugin, long timeout) {
+		List<AsyncCommandExecutor> open = new ArrayList<AsyncCommandExecutor>();
+		synchronized (OPEN) {
+			for (AsyncCommandExecutor executor : OPEN) {
+				if (executor._plugin == plugin)
+					open.add(executor);
+			}
+		}
+		for (AsyncCommandExecutor executor : open) {
+			executor.close(timeout);
+		}
+	}
+	
+	/**
+	 * Get the amount of commands waiting for a thread
+	 * 
+	 * @return the amount of queued commands
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public int getQueueDepth() {
+		return _executor.getQueue().size();
+	}
+	
+	/**
+	 * Get the amount of commands currently running
+	 * 
+	 * @return the amount of running commands
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public int getActiveCount() {
+		return _executor.getActiveCount();
+	}
+	
+	/**
+	 * Get the amount of commands a command sender has waiting or running
+	 * 
+	 * @param sender
+	 *            the name of the command sender
+	 * @return the amount of commands
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public int getPendingCount(String sender) {
+		synchronized (_lock) {
+			return count(_senders, sender);
+		}
+	}
+	
+	/**
+	 * Get how many commands finished without throwing an exception
+	 * 
+	 * @return the amount of completed commands
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public long getCompletedCount() {
+		return _completed.get();
+	}
+	
+	/**
+	 * Get how many commands threw an exception
+	 * 
+	 * @return the amount of failed commands
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public long getFailedCount() {
+		return _failed.get();
+	}
+	
+	/**
+	 * Get how many commands were rejected because a limit was reached or the
+	 * executor was closed
+	 * 
+	 * @return the amount of rejected commands
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public long getRejectedCount() {
+		return _rejected.get();
+	}
+	
+	/**
+	 * Get how many commands were interrupted because they ran for too long
+	 * 
+	 * @return the amount of commands that timed out
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public long getTimedOutCount() {
+		return _timedOut.get();
+	}
+	
+	private static class Threads implements ThreadFactory {
+		
+		private String			_prefix;
+		private AtomicInteger	_count	= new AtomicInteger();
+		
+		Threads(String prefix) {
+			_prefix = prefix;
+		}
+		
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, _prefix + _count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+	}
+	
+	private class CommandTask extends FutureTask<Boolean> {
+		
+		private BCommand				_command;
+		private BukkitCommandContext	_context;
+		private String					_sender;
+		
+		CommandTask(final BCommand command, final BukkitCommandContext context, String sender) {
+			super(new Callable<Boolean>() {
+				
+				@Override
+				public Boolean call() {
+					return command.superRun(context);
+				}
+				
+			});
+			_command = command;
+			_context = context;
+			_sender = sender;
+		}
+		
+		@Override
+		public void run() {
+			ScheduledFuture<?> timeout = null;
+			if (_timer != null) {
+				timeout = _timer.schedule(new Runnable() {
+					
+					@Override
+					public void run() {
+						//false if the command finished in the meantime
+						if (cancel(true)) {
+							_timedOut.incrementAndGet();
+							_context.printError("This command took too long and was cancelled");
+						}
+					}
+					
+				}, _timeout, TimeUnit.MILLISECONDS);
+			}
+			try {
+				super.run();
+			} finally {
+				if (timeout != null)
+					timeout.cancel(false);
+				//a command that was interrupted keeps its slot until its thread is free again
+				release();
+			}
+		}
+		
+		@Override
+		protected void done() {
+			if (isCancelled())
+				return;
+			try {
+				if (get())
+					_completed.incrementAndGet();
+				else
+					_failed.incrementAndGet();
+			} catch (ExecutionException e) {
+				//superRun only catches exceptions, an error such as a NoClassDefFoundError ends up here
+				_failed.incrementAndGet();
+				e.getCause().printStackTrace();
+				_context.printError("An error occurred while running this command");
+			} catch (InterruptedException e) {
+				//cannot happen, the command is done
+			}
+		}
+		
+		void release() {
+			synchronized (_lock) {
+				add(_senders, _sender, -1);
+				add(_commands, _command, -1);
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,43 @@
+package com.kill3rtaco.api.bukkit.command;
+
+/**
+ * Represents various options for an {@link AsyncCommandExecutor}
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Bukkit 3.1
+ */
+public class AsyncCommandOptions {
+	
+	/**
+	 * How many threads run asynchronous commands. Default: 4
+	 */
+	public int	threads			= 4;
+	
+	/**
+	 * How many asynchronous commands may wait for a thread. Once this many are
+	 * waiting, new ones are rejected. Default: 100
+	 */
+	public int	queueSize		= 100;
+	
+	/**
+	 * How many asynchronous commands a single command sender may have waiting
+	 * or running at once. Set to 0 for no limit. Default: 2
+	 */
+	public int	maxPerSender	= 2;
+	
+	/**
+	 * How many times a single asynchronous command may be waiting or running
+	 * at once, for all command senders combined. Set to 0 for no limit.
+	 * Default: 20
+	 */
+	public int	maxPerCommand	= 20;
+	
+	/**
+	 * How long (in milliseconds) an asynchronous command may run before it is
+	 * interrupted. Set to 0 to let commands run as long as they need. Default:
+	 * 30000
+	 */
+	public long	timeout			= 30000;
+	
+}
@@ -11,6 +11,7 @@ import org.bukkit.scheduler.BukkitRunnable;
 
 import com.kill3rtaco.api.bukkit.command.tab.TabCompletionLists;
 import com.kill3rtaco.api.bukkit.command.tab.TabCompletionListsLiteral;
+import com.kill3rtaco.api.command.MethodInvoker;
 import com.kill3rtaco.api.command.TCommand;
 
 /**
@@ -30,7 +31,20 @@ public class BCommand extends TCommand {
 	protected Map<Integer, List<String>>	_tclLiterals	= new HashMap<Integer, List<String>>();
 	
 	public BCommand(Method method) {
-		super(method);
+		this(method, MethodInvoker.Strategy.PER_CALL);
+	}
+	
+	/**
+	 * Create a command from a method
+	 * 
+	 * @param method
+	 *            The method annotated with {@link BukkitCommand}
+	 * @param strategy
+	 *            How instances of the class declaring the method are created
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public BCommand(Method method, MethodInvoker.Strategy strategy) {
+		super(method, strategy);
 		BukkitCommand bcmd = method.getAnnotation(BukkitCommand.class);
 		_async = bcmd.async();
 		_commandBlock = bcmd.commandBlock();
@@ -144,7 +158,9 @@ public class BCommand extends TCommand {
 	}
 	
 	/**
-	 * Run the command
+	 * Run the command. Asynchronous commands are given to the Bukkit
+	 * scheduler; a {@link BukkitCommandManager} runs them with its
+	 * {@link AsyncCommandExecutor} instead.
 	 * 
 	 * @param context
 	 *            The context of the command, including who ran it, the
@@ -166,12 +182,15 @@ public class BCommand extends TCommand {
 		}.runTaskAsynchronously(context._plugin);
 	}
 	
-	private void superRun(BukkitCommandContext context) {
+	//false if the command threw an exception
+	boolean superRun(BukkitCommandContext context) {
 		try {
 			super.run(context);
+			return true;
 		} catch (Exception e) {
 			e.printStackTrace();
 			context.printError("An exception occurred while running this command");
+			return false;
 		}
 	}
 	
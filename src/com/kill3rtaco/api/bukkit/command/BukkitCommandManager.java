@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.bukkit.Bukkit;
@@ -21,10 +22,14 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import com.kill3rtaco.api.bukkit.TChat;
 import com.kill3rtaco.api.bukkit.TPerm;
+import com.kill3rtaco.api.bukkit.command.tab.CompletionIndex;
 import com.kill3rtaco.api.bukkit.command.tab.TabCompletionList;
+import com.kill3rtaco.api.bukkit.command.tab.TabCompletionListDefaults;
 import com.kill3rtaco.api.bukkit.pagination.BukkitPageViewer;
 import com.kill3rtaco.api.bukkit.util.ChatUtils;
 import com.kill3rtaco.api.bukkit.util.PrintOptions;
+import com.kill3rtaco.api.command.CommandArgs;
+import com.kill3rtaco.api.command.MethodInvoker;
 import com.kill3rtaco.api.command.TCommandManager;
 
 /**
@@ -38,11 +43,19 @@ import com.kill3rtaco.api.command.TCommandManager;
  */
 public class BukkitCommandManager implements TCommandManager, CommandExecutor, TabCompleter {
 	
-	protected List<BCommand>		_commands	= new ArrayList<BCommand>();
-	protected Map<String, Method>	_tcls		= new HashMap<String, Method>();
-	protected JavaPlugin			_plugin;
-	protected PrintOptions			_options;
-	protected TChat					_chat;
+	protected List<BCommand>						_commands	= new ArrayList<BCommand>();
+	//routing tables, built by reg(). keys are lower case
+	protected Map<String, BCommand>					_simple		= new HashMap<String, BCommand>();
+	protected Map<String, Map<String, BCommand>>	_routes		= new HashMap<String, Map<String, BCommand>>();
+	protected Map<String, List<BCommand>>			_labels		= new HashMap<String, List<BCommand>>();
+	protected Map<String, CompletionIndex>			_names		= new HashMap<String, CompletionIndex>();
+	protected Map<String, MethodInvoker>			_tcls		= new HashMap<String, MethodInvoker>();
+	protected MethodInvoker.Strategy				_strategy	= MethodInvoker.Strategy.PER_CALL;
+	protected int									_tabLimit	= CompletionIndex.DEFAULT_LIMIT;
+	protected volatile AsyncCommandExecutor			_async;
+	protected JavaPlugin							_plugin;
+	protected PrintOptions							_options;
+	protected TChat									_chat;
 	
 	public BukkitCommandManager(JavaPlugin plugin) {
 		this(plugin, new PrintOptions());
@@ -52,7 +65,69 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 		_plugin = plugin;
 		_options = options;
 		_chat = new TChat(_plugin.getName());
-//		regTabCompletionLists(TabCompletionListDefaults.class); //not needed for this plugin
+		regTabCompletionLists(TabCompletionListDefaults.class);
+	}
+	
+	/**
+	 * Set how instances of the classes declaring commands and tab completion lists are created. This only affects
+	 * commands and lists registered afterwards. Default: {@link MethodInvoker.Strategy#PER_CALL}
+	 * 
+	 * @param strategy
+	 *            the strategy
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public void setInstanceStrategy(MethodInvoker.Strategy strategy) {
+		_strategy = strategy;
+	}
+	
+	public MethodInvoker.Strategy getInstanceStrategy() {
+		return _strategy;
+	}
+	
+	/**
+	 * Set the most suggestions given when tab completing. Longer lists returned by tab completion lists are cut
+	 * short. Default: {@link CompletionIndex#DEFAULT_LIMIT}
+	 * 
+	 * @param limit
+	 *            the limit
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public void setTabCompletionLimit(int limit) {
+		_tabLimit = limit;
+	}
+	
+	public int getTabCompletionLimit() {
+		return _tabLimit;
+	}
+	
+	/**
+	 * Set the executor asynchronous commands are run with
+	 * 
+	 * @param executor
+	 *            the executor
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public void setAsyncExecutor(AsyncCommandExecutor executor) {
+		_async = executor;
+	}
+	
+	/**
+	 * Get the executor asynchronous commands are run with. If none was set, one
+	 * is created with the default {@link AsyncCommandOptions}, which is closed
+	 * when the plugin is disabled.
+	 * 
+	 * @return the executor
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public AsyncCommandExecutor getAsyncExecutor() {
+		AsyncCommandExecutor executor = _async;
+		if (executor != null)
+			return executor;
+		synchronized (this) {
+			if (_async == null)
+				_async = new AsyncCommandExecutor(_plugin, new AsyncCommandOptions());
+			return _async;
+		}
 	}
 	
 	@Override
@@ -64,7 +139,7 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 	public void reg(Class<?> clazz) {
 		for (Method m : clazz.getDeclaredMethods()) {
 			if (BCommand.testValidity(m)) {
-				BCommand cmd = new BCommand(m);
+				BCommand cmd = new BCommand(m, _strategy);
 				PluginCommand bukkitCmd;
 				if (cmd.isSimple())
 					bukkitCmd = _plugin.getCommand(cmd.getName());
@@ -76,10 +151,72 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 				if (bukkitCmd.getTabCompleter() == null)
 					bukkitCmd.setTabCompleter(this);
 				_commands.add(cmd);
+				route(cmd);
 			}
 		}
 	}
 	
+	/**
+	 * Add a command to the routing tables. The tables give the same result as checking every command in the order
+	 * they were registered, where the first match wins.
+	 * 
+	 * @param cmd
+	 *            the command to add
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	protected void route(BCommand cmd) {
+		if (cmd.isSimple()) {
+			String name = lower(cmd.getName());
+			if (!_simple.containsKey(name))
+				_simple.put(name, cmd);
+			return;
+		}
+		String label = lower(cmd.getLabel());
+		List<BCommand> commands = _labels.get(label);
+		if (commands == null)
+			_labels.put(label, commands = new ArrayList<BCommand>());
+		commands.add(cmd);
+		if (!cmd.isInvisible()) {
+			CompletionIndex names = _names.get(label);
+			if (names == null)
+				_names.put(label, names = new CompletionIndex());
+			names.add(cmd.getName());
+		}
+		
+		//a simple command registered earlier with the same name always matched first
+		if (_simple.containsKey(label))
+			return;
+		Map<String, BCommand> routes = _routes.get(label);
+		if (routes == null)
+			_routes.put(label, routes = new HashMap<String, BCommand>());
+		String name = lower(cmd.getName());
+		if (!routes.containsKey(name))
+			routes.put(name, cmd);
+		for (String alias : cmd.getAliases()) {
+			alias = lower(alias);
+			if (!routes.containsKey(alias))
+				routes.put(alias, cmd);
+		}
+	}
+	
+	private static String lower(String str) {
+		return str.toLowerCase(Locale.ENGLISH);
+	}
+	
+	//numbers given as the first argument are routed to the commands named # or #.#
+	private static String routeArg(String[] args) {
+		if (args.length == 0)
+			return "";
+		switch (CommandArgs.typeOf(args[0])) {
+			case INT:
+				return "#";
+			case DOUBLE:
+				return "#.#";
+			default:
+				return args[0];
+		}
+	}
+	
 	//better do call this before commands
 	public void regTabCompletionLists(Class<?> clazz) {
 		for (Method m : clazz.getDeclaredMethods()) {
@@ -91,7 +228,11 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 			if (params.length != 1 || params[0] != String.class)
 				continue;
 			String id = m.getAnnotation(TabCompletionList.class).value();
-			_tcls.put(id, m);
+			try {
+				_tcls.put(id, new MethodInvoker(m, _strategy));
+			} catch (ReflectiveOperationException e) {
+				e.printStackTrace();
+			}
 //			System.out.println("ID: " + id + ", Method: " + m.getName());
 		}
 	}
@@ -102,13 +243,14 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 	}
 	
 	public BCommand getCommand(String bukkitCmdName, String arg0) {
-		for (BCommand c : _commands) {
-			if (!c.isSimple() && c.getLabel().equalsIgnoreCase(bukkitCmdName) && c.hasAlias(arg0))
-				return c;
-			if (c.isSimple() && c.getName().equalsIgnoreCase(bukkitCmdName))
-				return c;
+		String label = lower(bukkitCmdName);
+		Map<String, BCommand> routes = _routes.get(label);
+		if (routes != null && arg0 != null) {
+			BCommand command = routes.get(lower(arg0));
+			if (command != null)
+				return command;
 		}
-		return null;
+		return _simple.get(label);
 	}
 	
 	/**
@@ -127,23 +269,17 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 	}
 	
 	private List<String> commandNames(String bukkitCmdName, String start) {
-		List<String> valid = new ArrayList<String>();
-		for (BCommand c : _commands) {
-			if (c.isInvisible())
-				continue;
-			if (!c.isSimple() && c.getLabel().equalsIgnoreCase(bukkitCmdName) && c.getName().toLowerCase().startsWith(start.toLowerCase())) {
-				valid.add(c.getName());
-			}
-		}
-		Collections.sort(valid);
-		return valid;
+		CompletionIndex names = _names.get(lower(bukkitCmdName));
+		if (names == null)
+			return new ArrayList<String>();
+		return names.complete(start, _tabLimit);
 	}
 	
 	@Override
 	public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
 		String bukkitCmdName = cmd.getName();
 		//arg0 will be # or #.# depending on number format (instead of the actual number itself)
-		String arg0 = (args.length > 0 ? (ChatUtils.isInt(args[0]) ? "#" : ChatUtils.isDouble(args[0]) ? "#.#" : args[0]) : "");
+		String arg0 = routeArg(args);
 		BCommand command = getCommand(bukkitCmdName, arg0);
 		
 		if (command == null) {
@@ -223,7 +359,10 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 			return true;
 		}
 		
-		command.run(context);
+		if (command.isAsync())
+			getAsyncExecutor().submit(command, context);
+		else
+			command.run(context);
 		
 		return true;
 	}
@@ -239,7 +378,7 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 			return commandNames(bukkitCmdName, start);
 		}
 		//arg0 will be # or #.# depending on number format (instead of the actual number itself)
-		String arg0 = (args.length > 0 ? (ChatUtils.isInt(args[0]) ? "#" : ChatUtils.isDouble(args[0]) ? "#.#" : args[0]) : "");
+		String arg0 = routeArg(args);
 		if (arg0.equals("?") && args.length > 1) {
 			return commandNames(bukkitCmdName, args[1]);
 		}
@@ -259,12 +398,15 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 			return command.getLiteralList(index, start);
 		}
 		
-		Method method = _tcls.get(listId);
-		if (method == null)
+		MethodInvoker invoker = _tcls.get(listId);
+		if (invoker == null)
 			return nothing;
 		try {
 			//throws exception only if the programmer failed to comply with the guidelines of @TabCompletionList
-			return (List<String>) method.invoke(method.getDeclaringClass().newInstance(), start);
+			List<String> list = (List<String>) invoker.invoke(start);
+			if (list != null && list.size() > _tabLimit)
+				return new ArrayList<String>(list.subList(0, _tabLimit));
+			return list;
 		} catch (Exception e) {
 			e.printStackTrace();
 			return nothing;
@@ -318,9 +460,12 @@ public class BukkitCommandManager implements TCommandManager, CommandExecutor, T
 		BukkitPageViewer pages = new BukkitPageViewer("&b/" + alias + " &3Command Help", "&3=====[%title &9%page&3]=====");
 		pages.setSubtitle("&aKEY: &2<> &7- &eRequired &2[] &7- &eOptional &2/ &7- &eOr");
 		List<BCommand> commands = new ArrayList<BCommand>();
-		for (BCommand c : _commands) {
-			if (!c.isSimple() && c.getLabel().equalsIgnoreCase(label) && !c.isInvisible() && TPerm.hasPermission(sender, c.getPermission()))
-				commands.add(c);
+		List<BCommand> registered = _labels.get(lower(label));
+		if (registered != null) {
+			for (BCommand c : registered) {
+				if (!c.isInvisible() && TPerm.hasPermission(sender, c.getPermission()))
+					commands.add(c);
+			}
 		}
 		pages.append("&3/&b" + alias + " &3?&b/&3help &b[page] &7- &bShow general help");
 		for (BCommand c : commands) {
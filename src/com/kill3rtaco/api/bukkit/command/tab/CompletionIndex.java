@@ -0,0 +1,167 @@
+package com.kill3rtaco.api.bukkit.command.tab;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A sorted set of names that can be completed by prefix, ignoring case. Completing a prefix only looks at the names
+ * that start with it, so the cost does not grow with the size of the index. Names can be added and removed at any
+ * time, and the index may be used from several threads.
+ * 
+ * <pre>
+ * CompletionIndex index = new CompletionIndex();
+ * index.add(&quot;KILL3RTACO&quot;);
+ * index.complete(&quot;kill&quot;); //[KILL3RTACO]
+ * </pre>
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Bukkit 3.1
+ */
+public class CompletionIndex {
+	
+	/**
+	 * The most names {@link #complete(String)} returns
+	 * 
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public static final int			DEFAULT_LIMIT	= 100;
+	
+	//lower case name -> name
+	private TreeMap<String, String>	_names			= new TreeMap<String, String>();
+	
+	/**
+	 * Create an empty index
+	 * 
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public CompletionIndex() {
+		
+	}
+	
+	/**
+	 * Create an index holding the given names
+	 * 
+	 * @param names
+	 *            the names to add
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public CompletionIndex(Iterable<String> names) {
+		addAll(names);
+	}
+	
+	private static String key(String name) {
+		return name.toLowerCase(Locale.ENGLISH);
+	}
+	
+	/**
+	 * Add a name. If a name differing only in case is already in the index, the index is not changed.
+	 * 
+	 * @param name
+	 *            the name to add
+	 * @return true if the name was added
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public synchronized boolean add(String name) {
+		String key = key(name);
+		if (_names.containsKey(key))
+			return false;
+		_names.put(key, name);
+		return true;
+	}
+	
+	/**
+	 * Add several names
+	 * 
+	 * @param names
+	 *            the names to add
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public synchronized void addAll(Iterable<String> names) {
+		for (String name : names) {
+			add(name);
+		}
+	}
+	
+	/**
+	 * Remove a name, ignoring case
+	 * 
+	 * @param name
+	 *            the name to remove
+	 * @return true if the name was in the index
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public synchronized boolean remove(String name) {
+		return _names.remove(key(name)) != null;
+	}
+	
+	/**
+	 * Test if a name is in the index, ignoring case
+	 * 
+	 * @param name
+	 *            the name
+	 * @return true if the index has the name
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public synchronized boolean contains(String name) {
+		return _names.containsKey(key(name));
+	}
+	
+	/**
+	 * Remove every name
+	 * 
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public synchronized void clear() {
+		_names.clear();
+	}
+	
+	/**
+	 * Get the amount of names in the index
+	 * 
+	 * @return the size of the index
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public synchronized int size() {
+		return _names.size();
+	}
+	
+	/**
+	 * Get the names that start with a prefix, ignoring case, in alphabetical order. At most {@link #DEFAULT_LIMIT}
+	 * names are returned.
+	 * 
+	 * @param prefix
+	 *            the prefix
+	 * @return a new list with the names found
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public List<String> complete(String prefix) {
+		return complete(prefix, DEFAULT_LIMIT);
+	}
+	
+	/**
+	 * Get the names that start with a prefix, ignoring case, in alphabetical order
+	 * 
+	 * @param prefix
+	 *            the prefix
+	 * @param limit
+	 *            the most names to return
+	 * @return a new list with the names found
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public synchronized List<String> complete(String prefix, int limit) {
+		List<String> valid = new ArrayList<String>(Math.min(Math.max(limit, 0), 16));
+		String start = key(prefix);
+		//the names that start with the prefix come right after it
+		for (Map.Entry<String, String> e : _names.tailMap(start, true).entrySet()) {
+			if (valid.size() >= limit || !e.getKey().startsWith(start))
+				break;
+			valid.add(e.getValue());
+		}
+		return valid;
+	}
+	
+}
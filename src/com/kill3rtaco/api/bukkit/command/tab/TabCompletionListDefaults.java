@@ -0,0 +1,111 @@
+package com.kill3rtaco.api.bukkit.command.tab;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+
+import com.kill3rtaco.api.bukkit.util.ItemUtils.DisplayName;
+import com.kill3rtaco.api.bukkit.util.ItemUtils.EnchantDisplayName;
+import com.kill3rtaco.tacoapi.TacoAPI;
+
+/**
+ * The tab completion lists whose ids are in {@link TacoAPI}. Every BukkitCommandManager registers these lists. The
+ * names of materials, entity types, enchantments and display names are indexed once. The names of players and worlds
+ * are kept up to date by {@link TabCompletionListener} as players join and leave and worlds are loaded.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Bukkit 3.1
+ */
+public final class TabCompletionListDefaults {
+	
+	static final CompletionIndex	MATERIALS		= new CompletionIndex();
+	static final CompletionIndex	DISPLAY_NAMES	= new CompletionIndex();
+	static final CompletionIndex	ALL_ITEM_NAMES	= new CompletionIndex();
+	static final CompletionIndex	ENCHANTMENTS	= new CompletionIndex();
+	static final CompletionIndex	ENTITY_TYPES	= new CompletionIndex();
+	static final CompletionIndex	PLAYERS			= new CompletionIndex();
+	static final CompletionIndex	WORLDS			= new CompletionIndex();
+	
+	static {
+		for (Material m : Material.values()) {
+			MATERIALS.add(lower(m.name()));
+		}
+		//any of these can be given to DisplayName.getDisplayName()
+		for (DisplayName dn : DisplayName.values()) {
+			DISPLAY_NAMES.add(lower(dn.name()));
+			for (String alias : dn.getAliases()) {
+				DISPLAY_NAMES.add(lower(alias));
+			}
+		}
+		ALL_ITEM_NAMES.addAll(MATERIALS.complete("", Integer.MAX_VALUE));
+		ALL_ITEM_NAMES.addAll(DISPLAY_NAMES.complete("", Integer.MAX_VALUE));
+		for (EnchantDisplayName e : EnchantDisplayName.values()) {
+			ENCHANTMENTS.add(lower(e.name()));
+		}
+		for (Enchantment e : Enchantment.values()) {
+			if (e != null && e.getName() != null)
+				ENCHANTMENTS.add(lower(e.getName()));
+		}
+		for (EntityType type : EntityType.values()) {
+			ENTITY_TYPES.add(lower(type.name()));
+		}
+		//players that were online before the listener was called
+		for (Player p : Bukkit.getOnlinePlayers()) {
+			PLAYERS.add(p.getName());
+		}
+		for (World w : Bukkit.getWorlds()) {
+			WORLDS.add(w.getName());
+		}
+	}
+	
+	private TabCompletionListDefaults() {
+		
+	}
+	
+	private static String lower(String str) {
+		return str.toLowerCase(Locale.ENGLISH);
+	}
+	
+	@TabCompletionList(TacoAPI.TCL_ALL_ITEM_NAMES)
+	public static List<String> allItemNames(String alias) {
+		return ALL_ITEM_NAMES.complete(alias);
+	}
+	
+	@TabCompletionList(TacoAPI.TCL_DISPLAY_NAMES)
+	public static List<String> displayNames(String alias) {
+		return DISPLAY_NAMES.complete(alias);
+	}
+	
+	@TabCompletionList(TacoAPI.TCL_ENCHANTMENT_NAMES)
+	public static List<String> enchantmentNames(String alias) {
+		return ENCHANTMENTS.complete(alias);
+	}
+	
+	@TabCompletionList(TacoAPI.TCL_ENTITY_TYPES)
+	public static List<String> entityTypes(String alias) {
+		return ENTITY_TYPES.complete(alias);
+	}
+	
+	@TabCompletionList(TacoAPI.TCL_MATERIALS)
+	public static List<String> materials(String alias) {
+		return MATERIALS.complete(alias);
+	}
+	
+	@TabCompletionList(TacoAPI.TCL_PLAYER_NAMES)
+	public static List<String> playerNames(String alias) {
+		return PLAYERS.complete(alias);
+	}
+	
+	@TabCompletionList(TacoAPI.TCL_WORLD_NAMES)
+	public static List<String> worldNames(String alias) {
+		return WORLDS.complete(alias);
+	}
+	
+}
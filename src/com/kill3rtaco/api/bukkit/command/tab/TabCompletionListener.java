@@ -0,0 +1,41 @@
+package com.kill3rtaco.api.bukkit.command.tab;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Keeps the player and world names completed by {@link TabCompletionListDefaults} up to date. Note that the TacoAPI
+ * plugin automatically creates a new instance of this class and registers the listener.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Bukkit 3.1
+ */
+public class TabCompletionListener implements Listener {
+	
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerJoin(PlayerJoinEvent event) {
+		TabCompletionListDefaults.PLAYERS.add(event.getPlayer().getName());
+	}
+	
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event) {
+		TabCompletionListDefaults.PLAYERS.remove(event.getPlayer().getName());
+	}
+	
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onWorldLoad(WorldLoadEvent event) {
+		TabCompletionListDefaults.WORLDS.add(event.getWorld().getName());
+	}
+	
+	@EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+	public void onWorldUnload(WorldUnloadEvent event) {
+		TabCompletionListDefaults.WORLDS.remove(event.getWorld().getName());
+	}
+	
+}
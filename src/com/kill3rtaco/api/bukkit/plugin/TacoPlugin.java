@@ -6,6 +6,9 @@ import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import com.kill3rtaco.api.bukkit.TChat;
+import com.kill3rtaco.api.bukkit.command.AsyncCommandExecutor;
+import com.kill3rtaco.api.config.yml.YamlDocument;
+import com.kill3rtaco.api.database.Database;
 
 /**
  * Represents a bukkit plugin
@@ -32,7 +35,13 @@ public abstract class TacoPlugin extends JavaPlugin {
 	}
 	
 	public void onDisable() {
+		//asynchronous commands of this plugin, like its Bukkit tasks, stop running
+		AsyncCommandExecutor.closeAll(this, 5000);
 		onStop();
+		//write anything still queued by this (or any other) plugin's batch writers
+		Database.flushAll();
+		//and any document still waiting to be saved
+		YamlDocument.flushAll();
 	}
 	
 	/**
@@ -1,6 +1,13 @@
 package com.kill3rtaco.api.bukkit.plugin.config;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Color;
@@ -11,6 +18,7 @@ import org.bukkit.util.Vector;
 
 import com.kill3rtaco.api.bukkit.util.ItemUtils;
 import com.kill3rtaco.api.config.yml.YamlDocument;
+import com.kill3rtaco.api.config.yml.YamlDocumentOptions;
 import com.kill3rtaco.api.config.yml.YamlNode;
 
 /**
@@ -20,12 +28,29 @@ import com.kill3rtaco.api.config.yml.YamlNode;
  */
 public class BukkitYamlDocument extends YamlDocument {
 	
+	private static final Set<BukkitYamlDocument>	OPEN		= Collections.newSetFromMap(new WeakHashMap<BukkitYamlDocument, Boolean>());
+	private static volatile int						_worldEpoch;
+	//values decoded from nodes, kept until the node changes
+	private Map<YamlNode, Decoded>					_decoded	= new WeakHashMap<YamlNode, Decoded>();
+	
 	public BukkitYamlDocument() {
-		
+		track();
 	}
 	
 	public BukkitYamlDocument(File file) {
 		super(file);
+		track();
+	}
+	
+	public BukkitYamlDocument(File file, YamlDocumentOptions options) {
+		super(file, options);
+		track();
+	}
+	
+	private void track() {
+		synchronized (OPEN) {
+			OPEN.add(this);
+		}
 	}
 	
 	public void set(String path, Object value) {
@@ -78,7 +103,7 @@ public class BukkitYamlDocument extends YamlDocument {
 			} else {
 				YamlNode node = getNode(path, true);
 				if (world != null && !world.isEmpty())
-					set("world", world);
+					node.set("world", world);
 				node.set("x", x);
 				node.set("y", y);
 				node.set("z", z);
@@ -92,14 +117,23 @@ public class BukkitYamlDocument extends YamlDocument {
 		
 		//only here if bukkit object
 		if (options().saveOnSet)
-			save();
+			saveLater();
 	}
 	
 	public Color getColor(String path) {
-		if (!isSet(path))
+		YamlNode node = getNode(path);
+		if (node == null || !node.isSet())
 			return null;
 		
-		YamlNode node = getNode(path);
+		Object cached = getDecoded(node);
+		if (cached instanceof Color)
+			return (Color) cached;
+		Color color = parseColor(node);
+		setDecoded(node, color);
+		return color;
+	}
+	
+	private Color parseColor(YamlNode node) {
 		int r, g, b;
 		r = g = b = 0;
 		if (node.isSection()) {
@@ -151,10 +185,22 @@ public class BukkitYamlDocument extends YamlDocument {
 	
 	//simple, no meta involved
 	public ItemStack getSimpleItemStack(String path) {
-		if (!isSet(path))
+		YamlNode node = getNode(path);
+		if (node == null || !node.isSet())
 			return null;
 		
-		YamlNode node = getNode(path);
+		Object cached = getDecoded(node);
+		if (!(cached instanceof ItemStack)) {
+			cached = parseSimpleItemStack(node);
+			if (cached == null)
+				return null;
+			setDecoded(node, cached);
+		}
+		//item stacks can be changed, the cached one must not be
+		return ((ItemStack) cached).clone();
+	}
+	
+	private ItemStack parseSimpleItemStack(YamlNode node) {
 		if (node.isSection()) {
 			//get values from nodes
 			
@@ -195,10 +241,50 @@ public class BukkitYamlDocument extends YamlDocument {
 	}
 	
 	public Location getLocation(String path) {
-		if (!isSet(path))
+		YamlNode node = getNode(path);
+		if (node == null || !node.isSet())
 			return null;
 		
-		YamlNode node = getNode(path);
+		Location loc = getLocation(node);
+		return loc == null ? null : loc.clone();
+	}
+	
+	/**
+	 * Get every location in a section at once. The locations are in the same order as the nodes of the section; nodes
+	 * that are not set are null in the returned array.
+	 * 
+	 * @param path
+	 *            the path to the section
+	 * @return the locations, or an empty array if the path is not a section
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public Location[] getLocations(String path) {
+		YamlNode section = getNode(path);
+		if (section == null || !section.isSection())
+			return new Location[0];
+		
+		List<YamlNode> nodes = section.getNodes();
+		Location[] locations = new Location[nodes.size()];
+		for (int i = 0; i < locations.length; i++) {
+			YamlNode node = nodes.get(i);
+			Location loc = node.isSet() ? getLocation(node) : null;
+			locations[i] = loc == null ? null : loc.clone();
+		}
+		return locations;
+	}
+	
+	//the cached location, which must not be changed
+	private Location getLocation(YamlNode node) {
+		Object cached = getDecoded(node);
+		if (cached instanceof Location)
+			return (Location) cached;
+		Location loc = parseLocation(node);
+		if (loc != null)
+			setDecoded(node, loc);
+		return loc;
+	}
+	
+	private Location parseLocation(YamlNode node) {
 		if (node.isSection()) {
 			World world = (node.isSet("world") ? Bukkit.getWorld(node.getString("world")) : null);
 			double x = (node.isSet("x") ? node.getDouble("x") : 0);
@@ -220,21 +306,67 @@ public class BukkitYamlDocument extends YamlDocument {
 			String[] split = str.split("\\s+");
 			int index = 0;
 			World world = Bukkit.getWorld(split[index]);
-			if (world != null)
+			//the name of a world that is not loaded is still a name
+			if (world != null || makeDbl(split[index]) == null)
 				index++;
 			
 			//I honestly did not expect each expression to be the same
 			//once one fails, the rest do as well
-			double x = (split.length > index ? makeDbl(index++) : 0);
-			double y = (split.length > index ? makeDbl(index++) : 0);
-			double z = (split.length > index ? makeDbl(index++) : 0);
-			double yaw = (split.length > index ? makeDbl(index++) : 0);
-			double pitch = (split.length > index ? makeDbl(index++) : 0);
+			double x = (split.length > index ? parseDbl(split[index++]) : 0);
+			double y = (split.length > index ? parseDbl(split[index++]) : 0);
+			double z = (split.length > index ? parseDbl(split[index++]) : 0);
+			double yaw = (split.length > index ? parseDbl(split[index++]) : 0);
+			double pitch = (split.length > index ? parseDbl(split[index++]) : 0);
 			
 			return new Location(world, x, y, z, (float) yaw, (float) pitch);
 		}
 	}
 	
+	private double parseDbl(String str) {
+		Double d = makeDbl(str);
+		return d == null ? 0 : d;
+	}
+	
+	private Object getDecoded(YamlNode node) {
+		Decoded decoded;
+		synchronized (_decoded) {
+			decoded = _decoded.get(node);
+		}
+		if (decoded == null || decoded.modCount != node.getModCount() || decoded.worldEpoch != _worldEpoch)
+			return null;
+		return decoded.value;
+	}
+	
+	private void setDecoded(YamlNode node, Object value) {
+		synchronized (_decoded) {
+			_decoded.put(node, new Decoded(node.getModCount(), _worldEpoch, value));
+		}
+	}
+	
+	/**
+	 * Forget every location decoded by any BukkitYamlDocument, so their worlds are looked up again. TacoAPI calls this
+	 * whenever a world is loaded or unloaded.
+	 * 
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public static void worldsChanged() {
+		_worldEpoch++;
+		List<BukkitYamlDocument> open;
+		synchronized (OPEN) {
+			open = new ArrayList<BukkitYamlDocument>(OPEN);
+		}
+		//drop the locations themselves, so they don't keep unloaded worlds in memory
+		for (BukkitYamlDocument document : open) {
+			synchronized (document._decoded) {
+				Iterator<Decoded> it = document._decoded.values().iterator();
+				while (it.hasNext()) {
+					if (it.next().value instanceof Location)
+						it.remove();
+				}
+			}
+		}
+	}
+	
 	public Location getLocation(String path, Location def) {
 		if (isSet(path))
 			return getLocation(path);
@@ -245,6 +377,19 @@ public class BukkitYamlDocument extends YamlDocument {
 		return def;
 	}
 	
+	private static class Decoded {
+		
+		final int		modCount, worldEpoch;
+		final Object	value;
+		
+		Decoded(int modCount, int worldEpoch, Object value) {
+			this.modCount = modCount;
+			this.worldEpoch = worldEpoch;
+			this.value = value;
+		}
+		
+	}
+	
 	public enum SaveType {
 		
 		/**
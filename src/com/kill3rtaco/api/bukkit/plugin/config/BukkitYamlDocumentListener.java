@@ -0,0 +1,29 @@
+package com.kill3rtaco.api.bukkit.plugin.config;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Keeps the locations cached by BukkitYamlDocuments up to date when worlds are loaded or unloaded. Note that the
+ * TacoAPI plugin automatically creates a new instance of this class and registers the listener.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Bukkit 3.1
+ */
+public class BukkitYamlDocumentListener implements Listener {
+	
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onWorldLoad(WorldLoadEvent event) {
+		BukkitYamlDocument.worldsChanged();
+	}
+	
+	@EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+	public void onWorldUnload(WorldUnloadEvent event) {
+		BukkitYamlDocument.worldsChanged();
+	}
+	
+}
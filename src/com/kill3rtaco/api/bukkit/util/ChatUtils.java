@@ -8,6 +8,8 @@ import java.util.Random;
 
 import org.bukkit.ChatColor;
 
+import com.kill3rtaco.api.command.CommandArgs;
+
 /**
  * A utility chat specialized for String formatting. The following codes can be
  * used to format text:<br/>
@@ -125,12 +127,7 @@ public final class ChatUtils {
 	 * @since TacoAPI/Bukkit 3.0
 	 */
 	public static boolean isInt(String s) {
-		try {
-			Integer.parseInt(s);
-			return true;
-		} catch (NumberFormatException e) {
-			return false;
-		}
+		return CommandArgs.isInt(s);
 	}
 	
 	/**
@@ -142,12 +139,7 @@ public final class ChatUtils {
 	 * @since TacoAPI/Bukkit 3.0
 	 */
 	public static boolean isDouble(String s) {
-		try {
-			Integer.parseInt(s);
-			return true;
-		} catch (NumberFormatException e) {
-			return false;
-		}
+		return CommandArgs.isDouble(s);
 	}
 	
 	/**
@@ -0,0 +1,49 @@
+package com.kill3rtaco.api.bukkit.util;
+
+import java.util.concurrent.Executor;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * An Executor that runs tasks on the main server thread. Tasks given from the
+ * main thread are run immediately, all others are scheduled for the next
+ * tick. This is useful for callbacks of asynchronous work that need to use
+ * the Bukkit API:
+ * 
+ * <pre>
+ * db.getExecutor().setCallbackExecutor(new MainThreadExecutor(plugin));
+ * </pre>
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Bukkit 3.1
+ *
+ */
+public class MainThreadExecutor implements Executor {
+	
+	private Plugin	_plugin;
+	
+	/**
+	 * Create an executor that schedules tasks for the given plugin
+	 * 
+	 * @param plugin
+	 *            the plugin the tasks belong to
+	 * @since TacoAPI/Bukkit 3.1
+	 */
+	public MainThreadExecutor(Plugin plugin) {
+		_plugin = plugin;
+	}
+	
+	/**
+	 * Run a task on the main thread. If the plugin is disabled, tasks can no
+	 * longer be scheduled, so the task is run on the calling thread instead.
+	 */
+	@Override
+	public void execute(Runnable command) {
+		if (Bukkit.isPrimaryThread() || !_plugin.isEnabled())
+			command.run();
+		else
+			Bukkit.getScheduler().runTask(_plugin, command);
+	}
+	
+}
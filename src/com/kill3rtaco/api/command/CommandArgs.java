@@ -0,0 +1,488 @@
+package com.kill3rtaco.api.command;
+
+/**
+ * The arguments of a command, read once when the command is run. Whether each
+ * argument is an int or a double is found in a single pass over the
+ * arguments, without parsing by trial and error, so testing and getting
+ * numbers never throws. Slices share the arguments of the view they were
+ * taken from instead of copying them.<br/>
+ * <br/>
+ * For example, given the arguments:
+ * 
+ * <pre>
+ * {&quot;give&quot;, &quot;\&quot;Oreo&quot;, &quot;Cookie\&quot;&quot;, &quot;64&quot;}
+ * </pre>
+ * 
+ * <code>quoted()</code> would produce a view with the arguments:
+ * 
+ * <pre>
+ * {&quot;give&quot;, &quot;Oreo Cookie&quot;, &quot;64&quot;}
+ * </pre>
+ * 
+ * and <code>quoted().getInt(2, 1)</code> would produce 64
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Command 1.1
+ * @see CommandContext#getTokens()
+ *
+ */
+public final class CommandArgs {
+	
+	/**
+	 * The type of an argument. An argument is of the most specific type it can
+	 * be parsed as.
+	 * 
+	 * @since TacoAPI/Command 1.1
+	 */
+	public enum Type {
+		
+		/**
+		 * Can be parsed by Integer.parseInt(), and usually by
+		 * Double.parseDouble() as well
+		 */
+		INT,
+		
+		/**
+		 * Can be parsed by Double.parseDouble(), but not by Integer.parseInt()
+		 */
+		DOUBLE,
+		
+		/**
+		 * Cannot be parsed as a number
+		 */
+		STRING;
+	}
+	
+	private static final byte	IS_INT		= 1, IS_DOUBLE = 2;
+	
+	//shared by every slice of the same arguments
+	private final String[]		_args;
+	private final byte[]		_flags;
+	private final int[]			_ints;
+	private final double[]		_doubles;
+	private final int			_offset, _length;
+	private CommandArgs			_quoted;
+	
+	/**
+	 * Read the given arguments
+	 * 
+	 * @param args
+	 *            the arguments. The array is not copied, so it should not be
+	 *            changed afterwards.
+	 * @since TacoAPI/Command 1.1
+	 */
+	public CommandArgs(String[] args) {
+		_args = args;
+		_offset = 0;
+		_length = args.length;
+		_flags = new byte[args.length];
+		_ints = new int[args.length];
+		_doubles = new double[args.length];
+		long[] value = new long[1];
+		for (int i = 0; i < args.length; i++) {
+			String s = args[i];
+			if (s == null)
+				continue;
+			if (scanInt(s, value)) {
+				_flags[i] |= IS_INT;
+				_ints[i] = (int) value[0];
+			}
+			if (isDouble(s)) {
+				_flags[i] |= IS_DOUBLE;
+				//an int made of ASCII digits has the same value as a double, except -0
+				_doubles[i] = (_flags[i] & IS_INT) != 0 && _ints[i] != 0 && isAscii(s) ? _ints[i] : Double.parseDouble(s);
+			}
+		}
+	}
+	
+	private CommandArgs(CommandArgs parent, int offset, int length) {
+		_args = parent._args;
+		_flags = parent._flags;
+		_ints = parent._ints;
+		_doubles = parent._doubles;
+		_offset = offset;
+		_length = length;
+	}
+	
+	/**
+	 * Get the amount of arguments
+	 * 
+	 * @return the amount of arguments
+	 * @since TacoAPI/Command 1.1
+	 */
+	public int size() {
+		return _length;
+	}
+	
+	private boolean inBounds(int index) {
+		return index >= 0 && index < _length;
+	}
+	
+	private boolean has(int index, byte flag) {
+		return inBounds(index) && (_flags[_offset + index] & flag) != 0;
+	}
+	
+	/**
+	 * Get the argument at <code>index</code>
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @return the argument, or an empty String if <code>index</code> is out of
+	 *         bounds
+	 * @since TacoAPI/Command 1.1
+	 */
+	public String get(int index) {
+		return get(index, "");
+	}
+	
+	/**
+	 * Get the argument at <code>index</code>
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @param def
+	 *            The default
+	 * @return the argument, or <code>def</code> if <code>index</code> is out
+	 *         of bounds
+	 * @since TacoAPI/Command 1.1
+	 */
+	public String get(int index, String def) {
+		return inBounds(index) ? _args[_offset + index] : def;
+	}
+	
+	/**
+	 * Get the type of the argument at <code>index</code>
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @return the type, or null if <code>index</code> is out of bounds
+	 * @since TacoAPI/Command 1.1
+	 */
+	public Type getType(int index) {
+		if (!inBounds(index))
+			return null;
+		return has(index, IS_INT) ? Type.INT : has(index, IS_DOUBLE) ? Type.DOUBLE : Type.STRING;
+	}
+	
+	/**
+	 * Test if the argument at <code>index</code> can be parsed as an int
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @return true if the argument can be parsed as an int
+	 * @since TacoAPI/Command 1.1
+	 */
+	public boolean isInt(int index) {
+		return has(index, IS_INT);
+	}
+	
+	/**
+	 * Test if the argument at <code>index</code> can be parsed as a double
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @return true if the argument can be parsed as a double
+	 * @since TacoAPI/Command 1.1
+	 */
+	public boolean isDouble(int index) {
+		return has(index, IS_DOUBLE);
+	}
+	
+	/**
+	 * Get the argument at <code>index</code> as an int
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @param def
+	 *            The default
+	 * @return the argument as an int, or <code>def</code> if
+	 *         <code>index</code> is out of bounds or the argument is not an int
+	 * @since TacoAPI/Command 1.1
+	 */
+	public int getInt(int index, int def) {
+		return has(index, IS_INT) ? _ints[_offset + index] : def;
+	}
+	
+	/**
+	 * Get the argument at <code>index</code> as a double
+	 * 
+	 * @param index
+	 *            The index of the argument
+	 * @param def
+	 *            The default
+	 * @return the argument as a double, or <code>def</code> if
+	 *         <code>index</code> is out of bounds or the argument is not a
+	 *         double
+	 * @since TacoAPI/Command 1.1
+	 */
+	public double getDouble(int index, double def) {
+		return has(index, IS_DOUBLE) ? _doubles[_offset + index] : def;
+	}
+	
+	/**
+	 * Get the arguments from <code>startIndex</code> to the end. The slice
+	 * shares the arguments of this view.
+	 * 
+	 * @param startIndex
+	 *            Where to start
+	 * @return a view of the arguments
+	 * @since TacoAPI/Command 1.1
+	 */
+	public CommandArgs slice(int startIndex) {
+		return slice(startIndex, _length - 1);
+	}
+	
+	/**
+	 * Get the arguments from <code>startIndex</code> to <code>endIndex</code>,
+	 * inclusive. The slice shares the arguments of this view.
+	 * 
+	 * @param startIndex
+	 *            Where to start
+	 * @param endIndex
+	 *            Where to end
+	 * @return a view of the arguments
+	 * @throws IllegalArgumentException
+	 *             if <code>startIndex</code> is negative or greater than
+	 *             {@link #size()}, or <code>endIndex</code> is less than
+	 *             <code>startIndex - 1</code>
+	 * @since TacoAPI/Command 1.1
+	 */
+	public CommandArgs slice(int startIndex, int endIndex) {
+		if (startIndex < 0 || startIndex > _length)
+			throw new IllegalArgumentException("startIndex is out of bounds");
+		else if (endIndex < startIndex - 1)
+			throw new IllegalArgumentException("endIndex cannot be less than startIndex");
+		endIndex = Math.min(endIndex, _length - 1);
+		return new CommandArgs(this, _offset + startIndex, endIndex - startIndex + 1);
+	}
+	
+	/**
+	 * Join the arguments with the given delimiter
+	 * 
+	 * @param delim
+	 *            The delimiter to use
+	 * @return the joined arguments
+	 * @since TacoAPI/Command 1.1
+	 */
+	public String join(String delim) {
+		return join(0, _length - 1, delim);
+	}
+	
+	/**
+	 * Join the arguments from <code>startIndex</code> to
+	 * <code>endIndex</code>, inclusive, with the given delimiter. Indexes out
+	 * of bounds are ignored.
+	 * 
+	 * @param startIndex
+	 *            Where to start
+	 * @param endIndex
+	 *            Where to end
+	 * @param delim
+	 *            The delimiter to use
+	 * @return the joined arguments
+	 * @since TacoAPI/Command 1.1
+	 */
+	public String join(int startIndex, int endIndex, String delim) {
+		startIndex = Math.max(startIndex, 0);
+		endIndex = Math.min(endIndex, _length - 1);
+		if (startIndex > endIndex)
+			return "";
+		if (startIndex == endIndex)
+			return get(startIndex);
+		int size = delim.length() * (endIndex - startIndex);
+		for (int i = startIndex; i <= endIndex; i++) {
+			size += get(i).length();
+		}
+		StringBuilder joined = new StringBuilder(size);
+		for (int i = startIndex; i <= endIndex; i++) {
+			if (i > startIndex)
+				joined.append(delim);
+			joined.append(get(i));
+		}
+		return joined.toString();
+	}
+	
+	/**
+	 * Get a view of the arguments where arguments surrounded by double quotes
+	 * are joined into one, without the quotes. An opening quote that is never
+	 * closed is left as it is. The view is created once, then reused.
+	 * 
+	 * @return a view of the arguments with quoted arguments joined
+	 * @since TacoAPI/Command 1.1
+	 */
+	public CommandArgs quoted() {
+		if (_quoted != null)
+			return _quoted;
+		String[] args = null;
+		int count = 0;
+		for (int i = 0; i < _length; i++) {
+			String s = get(i);
+			int end = s.startsWith("\"") ? closingQuote(i) : -1;
+			if (end == -1) {
+				if (args != null)
+					args[count] = s;
+				count++;
+				continue;
+			}
+			if (args == null) {
+				args = new String[_length];
+				for (int j = 0; j < count; j++) {
+					args[j] = get(j);
+				}
+			}
+			String joined = join(i, end, " ");
+			args[count++] = joined.substring(1, joined.length() - 1);
+			i = end;
+		}
+		if (args == null)
+			return _quoted = this;
+		String[] trimmed = new String[count];
+		System.arraycopy(args, 0, trimmed, 0, count);
+		return _quoted = new CommandArgs(trimmed);
+	}
+	
+	//the index of the argument that closes a quote opened at start, or -1
+	private int closingQuote(int start) {
+		String first = get(start);
+		if (first.length() > 1 && first.endsWith("\""))
+			return start;
+		for (int i = start + 1; i < _length; i++) {
+			if (get(i).endsWith("\""))
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Copy the arguments to a new array
+	 * 
+	 * @return the arguments
+	 * @since TacoAPI/Command 1.1
+	 */
+	public String[] toArray() {
+		String[] args = new String[_length];
+		System.arraycopy(_args, _offset, args, 0, _length);
+		return args;
+	}
+	
+	/**
+	 * Get the type of a String
+	 * 
+	 * @param s
+	 *            The String
+	 * @return the type of the String
+	 * @since TacoAPI/Command 1.1
+	 */
+	public static Type typeOf(String s) {
+		return isInt(s) ? Type.INT : isDouble(s) ? Type.DOUBLE : Type.STRING;
+	}
+	
+	/**
+	 * Test if a String can be parsed by Integer.parseInt(), without throwing
+	 * an exception
+	 * 
+	 * @param s
+	 *            The String to test
+	 * @return true if the String is an int
+	 * @since TacoAPI/Command 1.1
+	 */
+	public static boolean isInt(String s) {
+		return s != null && scanInt(s, null);
+	}
+	
+	//the same rules as Integer.parseInt()
+	private static boolean scanInt(String s, long[] value) {
+		int length = s.length(), i = 0;
+		if (length == 0)
+			return false;
+		boolean negative = false;
+		char first = s.charAt(0);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			if (++i == length)
+				return false;
+		}
+		long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE, result = 0;
+		for (; i < length; i++) {
+			int digit = Character.digit(s.charAt(i), 10);
+			if (digit < 0)
+				return false;
+			result = result * 10 + digit;
+			if (result > limit)
+				return false;
+		}
+		if (value != null)
+			value[0] = negative ? -result : result;
+		return true;
+	}
+	
+	private static boolean isAscii(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) > 127)
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Test if a String can be parsed by Double.parseDouble(), without
+	 * throwing an exception
+	 * 
+	 * @param s
+	 *            The String to test
+	 * @return true if the String is a double
+	 * @since TacoAPI/Command 1.1
+	 */
+	public static boolean isDouble(String s) {
+		if (s == null)
+			return false;
+		//Double.parseDouble() ignores whitespace around the number
+		int i = 0, end = s.length();
+		while (i < end && s.charAt(i) <= ' ')
+			i++;
+		while (end > i && s.charAt(end - 1) <= ' ')
+			end--;
+		if (i == end)
+			return false;
+		char c = s.charAt(i);
+		if (c == '-' || c == '+')
+			i++;
+		if (s.startsWith("NaN", i))
+			return i + 3 == end;
+		if (s.startsWith("Infinity", i))
+			return i + 8 == end;
+		boolean hex = end - i > 2 && s.charAt(i) == '0' && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X');
+		if (hex)
+			i += 2;
+		int radix = hex ? 16 : 10, digits = 0;
+		for (; i < end && digit(s.charAt(i), radix); i++)
+			digits++;
+		if (i < end && s.charAt(i) == '.') {
+			for (i++; i < end && digit(s.charAt(i), radix); i++)
+				digits++;
+		}
+		if (digits == 0)
+			return false;
+		//hexadecimal numbers must have a binary exponent
+		if (i < end && (hex ? s.charAt(i) == 'p' || s.charAt(i) == 'P' : s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+			i++;
+			if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+				i++;
+			int start = i;
+			while (i < end && digit(s.charAt(i), 10))
+				i++;
+			if (i == start)
+				return false;
+		} else if (hex) {
+			return false;
+		}
+		if (i < end && "fFdD".indexOf(s.charAt(i)) != -1)
+			i++;
+		return i == end;
+	}
+	
+	private static boolean digit(char c, int radix) {
+		return c >= '0' && c <= '9' || radix == 16 && (c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F');
+	}
+	
+}
@@ -15,6 +15,7 @@ public abstract class CommandContext {
 	
 	private String						_label, _name;
 	private String[]					_args;
+	private CommandArgs					_tokens;
 	private static Map<String, String>	_messages	= new HashMap<String, String>();
 	
 	/**
@@ -160,6 +161,19 @@ public abstract class CommandContext {
 		return _args;
 	}
 	
+	/**
+	 * Get the arguments as a {@link CommandArgs}. The arguments are read the
+	 * first time this is called, and the same view is returned afterwards.
+	 * 
+	 * @return The arguments
+	 * @since TacoAPI/Command 1.1
+	 */
+	public CommandArgs getTokens() {
+		if (_tokens == null)
+			_tokens = new CommandArgs(_args);
+		return _tokens;
+	}
+	
 	/**
 	 * Join all the arguments with a space. As an example, consider the
 	 * arguments:<br/>
@@ -250,15 +264,7 @@ public abstract class CommandContext {
 	 *         separated by <code>delim</code>
 	 */
 	public String getJoinedArgs(int startIndex, int endIndex, String delim) {
-		String joined = "";
-		for (int i = startIndex; i <= endIndex; i++) {
-			if (_args.length <= i)
-				break;
-			joined += getString(i, "");
-			if (i < endIndex)
-				joined += delim;
-		}
-		return joined.trim();
+		return getTokens().join(startIndex, endIndex, delim).trim();
 	}
 	
 	/**
@@ -285,14 +291,9 @@ public abstract class CommandContext {
 	public String[] getSlice(int startIndex, int endIndex) {
 		if (startIndex < 0 || startIndex >= _args.length)
 			throw new IllegalArgumentException("startIndex is out of bounds");
-		else if (endIndex > startIndex)
-			throw new IllegalArgumentException("endIndex cannot be greater than startIndex");
-		
-		String[] args = new String[endIndex - startIndex];
-		for (int i = startIndex; i <= endIndex; i++) {
-			args[startIndex - i] = _args[i];
-		}
-		return args;
+		else if (endIndex < startIndex)
+			throw new IllegalArgumentException("endIndex cannot be less than startIndex");
+		return getTokens().slice(startIndex, endIndex).toArray();
 	}
 	
 	/**
@@ -426,12 +427,7 @@ public abstract class CommandContext {
 	 *         Integer
 	 */
 	public boolean isInt(int index) {
-		try {
-			Integer.parseInt(getString(index));
-			return true;
-		} catch (NumberFormatException e) {
-			return false;
-		}
+		return getTokens().isInt(index);
 	}
 	
 	/**
@@ -444,12 +440,7 @@ public abstract class CommandContext {
 	 *         Double
 	 */
 	public boolean isDouble(int index) {
-		try {
-			Double.parseDouble(getString(index));
-			return true;
-		} catch (NumberFormatException e) {
-			return false;
-		}
+		return getTokens().isDouble(index);
 	}
 	
 	/**
@@ -477,11 +468,7 @@ public abstract class CommandContext {
 	 *         be parsed an an Integer
 	 */
 	public int getInteger(int index, int def) {
-		try {
-			return Integer.parseInt(getString(index));
-		} catch (NumberFormatException e) {
-			return def;
-		}
+		return getTokens().getInt(index, def);
 	}
 	
 	/**
@@ -509,11 +496,7 @@ public abstract class CommandContext {
 	 *         be parsed an an Double
 	 */
 	public double getDouble(int index, int def) {
-		try {
-			return Double.parseDouble(getString(index));
-		} catch (NumberFormatException e) {
-			return def;
-		}
+		return getTokens().getDouble(index, def);
 	}
 	
 	/**
@@ -0,0 +1,126 @@
+package com.kill3rtaco.api.command;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls a method that takes one argument, such as a command or a tab completion list. The method is looked up once,
+ * when the invoker is created, instead of through reflection every time it is called.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Command 1.1
+ *
+ */
+public final class MethodInvoker {
+	
+	/**
+	 * How instances of the class declaring a method are created. Static methods never need an instance.
+	 * 
+	 * @since TacoAPI/Command 1.1
+	 */
+	public enum Strategy {
+		
+		/**
+		 * Create one instance when the invoker is created, and use it for every call. The class must be safe to use
+		 * from several threads if the method can run asynchronously.
+		 */
+		SINGLETON,
+		
+		/**
+		 * Create a new instance for every call. This is the default.
+		 */
+		PER_CALL;
+	}
+	
+	private static final MethodType	BOUND	= MethodType.methodType(Object.class, Object.class);
+	private static final MethodType	UNBOUND	= MethodType.methodType(Object.class, Object.class, Object.class);
+	
+	private final Method			_method;
+	//(arg)Object if static or bound to a singleton, otherwise (instance, arg)Object
+	private final MethodHandle		_handle;
+	private final MethodHandle		_constructor;
+	
+	/**
+	 * Create an invoker
+	 * 
+	 * @param method
+	 *            the method to call, which must take exactly one argument
+	 * @param strategy
+	 *            how instances of the declaring class are created
+	 * @throws ReflectiveOperationException
+	 *             if the method or the no-argument constructor of its class cannot be used, or the singleton could not
+	 *             be created
+	 * @since TacoAPI/Command 1.1
+	 */
+	public MethodInvoker(Method method, Strategy strategy) throws ReflectiveOperationException {
+		if (method.getParameterTypes().length != 1)
+			throw new IllegalArgumentException(method + " must take exactly one argument");
+		_method = method;
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle = lookup.unreflect(accessible(method));
+		if (Modifier.isStatic(method.getModifiers())) {
+			_handle = handle.asType(BOUND);
+			_constructor = null;
+			return;
+		}
+		
+		Constructor<?> constructor = accessible(method.getDeclaringClass().getDeclaredConstructor());
+		if (strategy == Strategy.SINGLETON) {
+			_handle = handle.bindTo(constructor.newInstance()).asType(BOUND);
+			_constructor = null;
+		} else {
+			_handle = handle.asType(UNBOUND);
+			_constructor = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+		}
+	}
+	
+	//the same methods and constructors that could be invoked through reflection before can be used
+	private static <T extends AccessibleObject> T accessible(T object) {
+		try {
+			object.setAccessible(true);
+		} catch (SecurityException e) {
+			//the lookup fails if the method really cannot be used
+		}
+		return object;
+	}
+	
+	/**
+	 * Get the method this invoker calls
+	 * 
+	 * @return the method
+	 * @since TacoAPI/Command 1.1
+	 */
+	public Method getMethod() {
+		return _method;
+	}
+	
+	/**
+	 * Call the method
+	 * 
+	 * @param arg
+	 *            the argument to call the method with
+	 * @return the value returned by the method, or null if it returns void
+	 * @throws Exception
+	 *             anything thrown by the method or the constructor of its class
+	 * @since TacoAPI/Command 1.1
+	 */
+	public Object invoke(Object arg) throws Exception {
+		try {
+			if (_constructor == null)
+				return (Object) _handle.invokeExact(arg);
+			return (Object) _handle.invokeExact((Object) _constructor.invokeExact(), arg);
+		} catch (Exception e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new RuntimeException(t);
+		}
+	}
+	
+}
@@ -13,12 +13,35 @@ import java.lang.reflect.Method;
  */
 public class TCommand implements Comparable<TCommand> {
 	
-	private String		_label	= null, _name, _args, _desc, _help = null;
-	private String[]	_aliases;
-	private Method		_toInvoke;
+	private String			_label	= null, _name, _args, _desc, _help = null;
+	private String[]		_aliases;
+	private Method			_toInvoke;
+	private MethodInvoker	_invoker;
+	private Exception		_bindError;
 	
 	public TCommand(Method method) {
+		this(method, MethodInvoker.Strategy.PER_CALL);
+	}
+	
+	/**
+	 * Create a command from a method. The method is bound once, here, so running the command does not need reflection.
+	 * 
+	 * @param method
+	 *            the method annotated with {@link Command}
+	 * @param strategy
+	 *            how instances of the class declaring the method are created
+	 * @since TacoAPI/Command 1.1
+	 */
+	public TCommand(Method method, MethodInvoker.Strategy strategy) {
 		_toInvoke = method;
+		try {
+			_invoker = new MethodInvoker(method, strategy);
+		} catch (ReflectiveOperationException e) {
+			//thrown again every time the command is run, like it used to be
+			_bindError = e;
+		} catch (RuntimeException e) {
+			_bindError = e;
+		}
 		if (method.isAnnotationPresent(ParentCommand.class))
 			_label = method.getAnnotation(ParentCommand.class).value();
 		Command cmdAnnotation = method.getAnnotation(Command.class);
@@ -69,7 +92,13 @@ public class TCommand implements Comparable<TCommand> {
 	}
 	
 	public <T extends CommandContext> void run(T context) throws Exception {
-		_toInvoke.invoke((Object) _toInvoke.getDeclaringClass().newInstance(), context);
+		if (_invoker == null)
+			throw _bindError;
+		_invoker.invoke(context);
+	}
+	
+	public Method getMethod() {
+		return _toInvoke;
 	}
 	
 	public static boolean testValidity(Method method) {
@@ -1,20 +1,28 @@
 package com.kill3rtaco.api.config.convert;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import com.kill3rtaco.api.config.yml.YamlDocument;
 import com.kill3rtaco.api.util.json.JSONArray;
 import com.kill3rtaco.api.util.json.JSONException;
 import com.kill3rtaco.api.util.json.JSONObject;
+import com.kill3rtaco.api.util.json.JSONTokener;
 
 /**
  * Convert a (org.json) JSONObject to a YamlDocument. JSONObjects have the same restrictions as YamlDocuments when they
  * are parsed. i.e. If the first element of an array is an object, that array is considered a YamlCollection, and
  * non-object values are ignored. The reverse is also true: if the first element of an array is not an object, then the
- * array is considered a List&lt;Object&gt;, and object values are ignored
+ * array is considered a List&lt;Object&gt;, and object values are ignored.
+ * <p>
+ * Large files should be converted with {@link #convert(Reader, Writer)}, which writes the YAML while the JSON is read,
+ * instead of loading either of them into memory.
  * 
  * @author KILL3RTACO
  *
@@ -26,6 +34,46 @@ public class JsonToYaml {
 		return new YamlDocument(convertContainer(object));
 	}
 	
+	/**
+	 * Convert JSON text to YAML text, one value at a time. Only the value being converted is kept in memory, so files
+	 * of any size can be converted. The YAML is written the same way a YamlDocument would save the same values. The
+	 * writer is flushed but not closed.
+	 * 
+	 * @param reader
+	 *            the JSON to read
+	 * @param writer
+	 *            where the YAML is written
+	 * @throws JSONException
+	 *             if the JSON is invalid or the writer fails
+	 * @since TacoAPI/ConfigConvert 1.1
+	 */
+	public static void convert(Reader reader, Writer writer) throws JSONException {
+		convert(new JSONTokener(reader), writer);
+	}
+	
+	/**
+	 * Convert JSON text to YAML text, one value at a time
+	 * 
+	 * @param tokener
+	 *            the JSON to read, which must start with an object
+	 * @param writer
+	 *            where the YAML is written
+	 * @throws JSONException
+	 *             if the JSON is invalid or the writer fails
+	 * @since TacoAPI/ConfigConvert 1.1
+	 * @see #convert(Reader, Writer)
+	 */
+	public static void convert(JSONTokener tokener, Writer writer) throws JSONException {
+		if (tokener.nextClean() != '{')
+			throw tokener.syntaxError("A JSONObject text must begin with '{'");
+		try {
+			new YamlWriter(tokener, writer).object(0, false);
+			writer.flush();
+		} catch (IOException e) {
+			throw new JSONException(e);
+		}
+	}
+	
 	private static Map<String, Object> convertContainer(JSONObject container) throws JSONException {
 		Map<String, Object> map = new HashMap<String, Object>();
 		
@@ -71,4 +119,232 @@ public class JsonToYaml {
 			return list;
 		}
 	}
+	
+	private static class YamlWriter {
+		
+		private static final String		NEWLINE		= System.getProperty("line.separator");
+		private static final Pattern	PLAIN		= Pattern.compile("[A-Za-z][A-Za-z0-9_\\-]*");
+		//plain strings that would be read back as something else
+		private static final Pattern	RESERVED	= Pattern.compile("yes|no|true|false|on|off|null", Pattern.CASE_INSENSITIVE);
+		
+		private JSONTokener				_in;
+		private Writer					_out;
+		
+		YamlWriter(JSONTokener in, Writer out) {
+			_in = in;
+			_out = out;
+		}
+		
+		private void indent(int depth) throws IOException {
+			for (int i = 0; i < depth; i++) {
+				_out.write("  "); //2 spaces
+			}
+		}
+		
+		//the '{' was already read. returns the amount of keys written
+		int object(int depth, boolean inline) throws IOException, JSONException {
+			int count = 0;
+			char c = _in.nextClean();
+			if (c == '}')
+				return 0;
+			_in.back();
+			while (true) {
+				c = _in.nextClean();
+				if (c == 0)
+					throw _in.syntaxError("A JSONObject text must end with '}'");
+				_in.back();
+				String key = _in.nextValue().toString();
+				c = _in.nextClean();
+				if (c == '=') {
+					if (_in.next() != '>')
+						_in.back();
+				} else if (c != ':') {
+					throw _in.syntaxError("Expected a ':' after a key");
+				}
+				
+				//the first key of a collection entry goes after the '- '
+				if (count > 0 || !inline)
+					indent(depth);
+				_out.write(scalar(key));
+				_out.write(":");
+				value(depth);
+				count++;
+				
+				switch (_in.nextClean()) {
+					case ';':
+					case ',':
+						if (_in.nextClean() == '}')
+							return count;
+						_in.back();
+						break;
+					case '}':
+						return count;
+					default:
+						throw _in.syntaxError("Expected a ',' or '}'");
+				}
+			}
+		}
+		
+		private void value(int depth) throws IOException, JSONException {
+			char c = _in.nextClean();
+			if (c == '{') {
+				if (_in.nextClean() == '}') {
+					_out.write(" {}");
+					_out.write(NEWLINE);
+					return;
+				}
+				_in.back();
+				_out.write(NEWLINE);
+				object(depth + 1, false);
+			} else if (c == '[') {
+				array(depth);
+			} else {
+				_in.back();
+				_out.write(" ");
+				_out.write(scalar(_in.nextValue()));
+				_out.write(NEWLINE);
+			}
+		}
+		
+		//the '[' was already read
+		private void array(int depth) throws IOException, JSONException {
+			char c = _in.nextClean();
+			if (c == ']') {
+				_out.write(" []");
+				_out.write(NEWLINE);
+				return;
+			}
+			_in.back();
+			//same as convertList, the first value decides if this is a list or a collection
+			boolean collection = c == '{';
+			int count = 0;
+			while (true) {
+				c = _in.nextClean();
+				if (c == ',' || c == ']') {
+					_in.back(); //JSONArray reads a missing value as null, which is skipped
+				} else if (collection && c == '{') {
+					if (count++ == 0)
+						_out.write(NEWLINE);
+					indent(depth);
+					_out.write("- ");
+					if (object(depth + 1, true) == 0) {
+						_out.write("{}");
+						_out.write(NEWLINE);
+					}
+				} else if (collection || c == '{' || c == '[') {
+					_in.back();
+					skip();
+				} else {
+					_in.back();
+					Object value = _in.nextValue();
+					if (value != JSONObject.NULL) {
+						if (count++ == 0)
+							_out.write(NEWLINE);
+						indent(depth);
+						_out.write("- ");
+						_out.write(scalar(value));
+						_out.write(NEWLINE);
+					}
+				}
+				
+				switch (_in.nextClean()) {
+					case ';':
+					case ',':
+						if (_in.nextClean() == ']') {
+							end(count);
+							return;
+						}
+						_in.back();
+						break;
+					case ']':
+						end(count);
+						return;
+					default:
+						throw _in.syntaxError("Expected a ',' or ']'");
+				}
+			}
+		}
+		
+		private void end(int count) throws IOException {
+			if (count == 0) {
+				//nothing in the array could be converted
+				_out.write(" []");
+				_out.write(NEWLINE);
+			}
+		}
+		
+		//skip a value without converting it
+		private void skip() throws JSONException {
+			char c = _in.nextClean();
+			if (c != '{' && c != '[') {
+				_in.back();
+				_in.nextValue();
+				return;
+			}
+			int depth = 1;
+			while (depth > 0) {
+				c = _in.next();
+				if (c == 0)
+					throw _in.syntaxError("Unterminated array or object");
+				else if (c == '"' || c == '\'')
+					_in.nextString(c);
+				else if (c == '{' || c == '[')
+					depth++;
+				else if (c == '}' || c == ']')
+					depth--;
+			}
+		}
+		
+		private static String scalar(Object value) {
+			if (value == null || value == JSONObject.NULL)
+				return "null";
+			if (value instanceof Double || value instanceof Float) {
+				double d = ((Number) value).doubleValue();
+				if (Double.isNaN(d))
+					return ".nan";
+				if (Double.isInfinite(d))
+					return d > 0 ? ".inf" : "-.inf";
+				String str = value.toString();
+				//YAML needs the sign of the exponent
+				int e = str.indexOf('E');
+				if (e != -1 && str.charAt(e + 1) != '-')
+					str = str.substring(0, e + 1) + "+" + str.substring(e + 1);
+				return str;
+			}
+			if (value instanceof Number || value instanceof Boolean)
+				return value.toString();
+			
+			String str = value.toString();
+			if (PLAIN.matcher(str).matches() && !RESERVED.matcher(str).matches())
+				return str;
+			StringBuilder sb = new StringBuilder(str.length() + 2).append('"');
+			for (int i = 0; i < str.length(); i++) {
+				char c = str.charAt(i);
+				switch (c) {
+					case '"':
+						sb.append("\\\"");
+						break;
+					case '\\':
+						sb.append("\\\\");
+						break;
+					case '\n':
+						sb.append("\\n");
+						break;
+					case '\r':
+						sb.append("\\r");
+						break;
+					case '\t':
+						sb.append("\\t");
+						break;
+					default:
+						if (c < ' ' || (c >= '\u007f' && c <= '\u009f') || c == '\u2028' || c == '\u2029' || c == '\ufeff')
+							sb.append(String.format("\\u%04x", (int) c));
+						else
+							sb.append(c);
+				}
+			}
+			return sb.append('"').toString();
+		}
+		
+	}
 }
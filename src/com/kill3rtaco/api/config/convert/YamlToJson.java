@@ -1,7 +1,19 @@
 package com.kill3rtaco.api.config.convert;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Iterator;
 import java.util.List;
 
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
 import com.kill3rtaco.api.config.yml.YamlCollection;
 import com.kill3rtaco.api.config.yml.YamlCollectionEntry;
 import com.kill3rtaco.api.config.yml.YamlDocument;
@@ -10,9 +22,12 @@ import com.kill3rtaco.api.config.yml.YamlNodeContainer;
 import com.kill3rtaco.api.util.json.JSONArray;
 import com.kill3rtaco.api.util.json.JSONException;
 import com.kill3rtaco.api.util.json.JSONObject;
+import com.kill3rtaco.api.util.json.JSONWriter;
 
 /**
- * Convert a <code>YamlDocument</code> to a (org.json) <code>JSONObject</code>
+ * Convert a <code>YamlDocument</code> to a (org.json) <code>JSONObject</code>. Large files should be converted with
+ * {@link #convert(Reader, Writer)}, which writes the JSON while the YAML is read, instead of loading either of them into
+ * memory.
  * 
  * @author KILL3RTACO
  *
@@ -24,6 +39,111 @@ public class YamlToJson {
 		return convertContainer(document);
 	}
 	
+	/**
+	 * Convert YAML text to JSON text, one value at a time. Only the value being converted is kept in memory, so files
+	 * of any size can be converted. Values are converted the same way as with {@link #convert(YamlDocument)}, including
+	 * leaving out keys without a value, with one difference: a list that holds both maps and other values keeps all of
+	 * them, whereas {@link #convert(YamlDocument)} only keeps the maps, since whether a list holds a map is only known
+	 * once the whole list was read. Anchors and aliases cannot be converted this way, since the values they refer to
+	 * are not kept. The writer is flushed but not closed.
+	 * 
+	 * @param reader
+	 *            the YAML to read
+	 * @param writer
+	 *            where the JSON is written
+	 * @throws JSONException
+	 *             if the YAML uses an alias, is not a map, or the writer fails
+	 * @since TacoAPI/ConfigConvert 1.1
+	 */
+	public static void convert(Reader reader, Writer writer) throws JSONException {
+		Iterator<Event> events = new Yaml().parse(reader).iterator();
+		JSONWriter json = new JSONWriter(writer);
+		Resolver resolver = new Resolver();
+		while (events.hasNext()) {
+			Event e = events.next();
+			if (e.is(Event.ID.MappingStart)) {
+				writeValue(e, events, json, resolver);
+				break;
+			} else if (e.is(Event.ID.StreamEnd) || (e.is(Event.ID.Scalar) && resolve((ScalarEvent) e, resolver) == null)) {
+				json.object().endObject(); //an empty document
+				break;
+			} else if (e.is(Event.ID.Scalar) || e.is(Event.ID.SequenceStart) || e.is(Event.ID.Alias)) {
+				throw new JSONException("The top level of the document must be a map");
+			}
+		}
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			throw new JSONException(e);
+		}
+	}
+	
+	private static void writeValue(Event event, Iterator<Event> events, JSONWriter json, Resolver resolver) throws JSONException {
+		if (event.is(Event.ID.MappingStart)) {
+			json.object();
+			while (true) {
+				Event key = events.next();
+				if (key.is(Event.ID.MappingEnd))
+					break;
+				if (!key.is(Event.ID.Scalar))
+					throw new JSONException("Only scalar keys can be converted");
+				Event value = events.next();
+				//same as convertContainer, keys without a value are left out
+				if (value.is(Event.ID.Scalar) && resolve((ScalarEvent) value, resolver) == null)
+					continue;
+				json.key(((ScalarEvent) key).getValue());
+				writeValue(value, events, json, resolver);
+			}
+			json.endObject();
+		} else if (event.is(Event.ID.SequenceStart)) {
+			json.array();
+			while (true) {
+				Event e = events.next();
+				if (e.is(Event.ID.SequenceEnd))
+					break;
+				//same as convertList, null values are skipped
+				if (e.is(Event.ID.Scalar) && resolve((ScalarEvent) e, resolver) == null)
+					continue;
+				writeValue(e, events, json, resolver);
+			}
+			json.endArray();
+		} else if (event.is(Event.ID.Scalar)) {
+			json.value(resolve((ScalarEvent) event, resolver));
+		} else if (event.is(Event.ID.Alias)) {
+			throw new JSONException("Aliases cannot be converted: *" + ((AliasEvent) event).getAnchor());
+		} else {
+			throw new JSONException("Unexpected " + event);
+		}
+	}
+	
+	//the value SnakeYAML would load for a scalar, limited to what JSON can hold
+	private static Object resolve(ScalarEvent event, Resolver resolver) {
+		String value = event.getValue();
+		Tag tag = event.getTag() == null || event.getTag().equals("!") ? resolver.resolve(NodeId.scalar, value, event
+				.getImplicit().canOmitTagInPlainScalar()) : new Tag(event.getTag());
+		if (tag.equals(Tag.NULL))
+			return null;
+		if (tag.equals(Tag.BOOL)) {
+			String bool = value.toLowerCase();
+			return bool.equals("true") || bool.equals("yes") || bool.equals("on");
+		}
+		try {
+			if (tag.equals(Tag.INT)) {
+				long l = Long.decode(value.replace("_", ""));
+				if (l == (int) l)
+					return (int) l;
+				return l;
+			} else if (tag.equals(Tag.FLOAT)) {
+				double d = Double.parseDouble(value.replace("_", ""));
+				if (!Double.isNaN(d) && !Double.isInfinite(d))
+					return d;
+			}
+		} catch (NumberFormatException e) {
+			//such as binary or sexagesimal numbers, which are kept as they were written
+		}
+		return value;
+	}
+	
 	private static JSONObject convertContainer(YamlNodeContainer container) throws JSONException {
 		JSONObject obj = new JSONObject();
 		for (YamlNode n : container) {
@@ -0,0 +1,477 @@
+package com.kill3rtaco.api.config.validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import com.kill3rtaco.api.config.yml.YamlCollection;
+import com.kill3rtaco.api.config.yml.YamlCollectionEntry;
+import com.kill3rtaco.api.config.yml.YamlNode;
+import com.kill3rtaco.api.config.yml.YamlNodeContainer;
+
+/**
+ * A compiled schema. The schema document is read once, when it is compiled, into a tree of rules with whitelists in
+ * hashed sets and ranges in arrays, so validating a document never reads the schema again. A compiled schema never
+ * changes, so it can validate any number of documents at once from different threads.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/YamlValidate 1.1
+ * @see YamlValidator
+ */
+public final class YamlSchema {
+	
+	private ContainerRule	_root;
+	
+	private YamlSchema(ContainerRule root) {
+		_root = root;
+	}
+	
+	/**
+	 * Compile a schema
+	 * 
+	 * @param schema
+	 *            the schema document
+	 * @return the compiled schema
+	 * @throws ValidatorException
+	 *             if the schema itself is invalid, such as when it uses an unknown type or a default of the wrong type
+	 * @since TacoAPI/YamlValidate 1.1
+	 */
+	public static YamlSchema compile(YamlNodeContainer schema) throws ValidatorException {
+		return new YamlSchema(compileContainer(schema));
+	}
+	
+	/**
+	 * Validate a document. Missing nodes that have a default in the schema are set to the default. Every problem is
+	 * collected, instead of stopping at the first one.
+	 * 
+	 * @param document
+	 *            the document to validate
+	 * @return the problems that were found, which is empty if the document is valid
+	 * @since TacoAPI/YamlValidate 1.1
+	 */
+	public List<ValidatorException> validate(YamlNodeContainer document) {
+		List<ValidatorException> errors = new ArrayList<ValidatorException>();
+		_root.check(document, errors);
+		return errors;
+	}
+	
+	/**
+	 * Validate several documents at once
+	 * 
+	 * @param documents
+	 *            the documents to validate. Each document should only be given once
+	 * @param executor
+	 *            the executor to validate the documents with
+	 * @return the problems found in each document, in the order the documents were given
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while waiting
+	 * @since TacoAPI/YamlValidate 1.1
+	 */
+	public <T extends YamlNodeContainer> Map<T, List<ValidatorException>> validateAll(Collection<T> documents, ExecutorService executor)
+			throws InterruptedException {
+		Map<T, Future<List<ValidatorException>>> futures = new LinkedHashMap<T, Future<List<ValidatorException>>>();
+		for (final T document : documents) {
+			futures.put(document, executor.submit(new Callable<List<ValidatorException>>() {
+				
+				@Override
+				public List<ValidatorException> call() {
+					return validate(document);
+				}
+				
+			}));
+		}
+		Map<T, List<ValidatorException>> results = new LinkedHashMap<T, List<ValidatorException>>();
+		for (Map.Entry<T, Future<List<ValidatorException>>> e : futures.entrySet()) {
+			try {
+				results.put(e.getKey(), e.getValue().get());
+			} catch (ExecutionException ex) {
+				//a broken document must not hide the results of the others
+				results.put(e.getKey(), Collections.singletonList(new ValidatorException("Could not validate: " + ex.getCause(),
+						e.getKey().getPath(), "")));
+			}
+		}
+		return results;
+	}
+	
+	private static ContainerRule compileContainer(YamlNodeContainer schema) throws ValidatorException {
+		List<Rule> rules = new ArrayList<Rule>();
+		for (YamlNode n : schema) {
+			rules.add(compileNode(n));
+		}
+		return new ContainerRule(rules);
+	}
+	
+	private static Rule compileNode(YamlNode schema) throws ValidatorException {
+		String type = schema.getString("type");
+		if (type == null)
+			type = "str";
+		type = type.toLowerCase();
+		
+		YamlNode def = schema.getNode("default");
+		if (def != null && !def.isSet())
+			def = null;
+		Rule rule;
+		if (type.equals("list")) {
+			if (def != null && !def.isList())
+				throw new ValidatorException("Type mismatch: default for node '" + schema.getName() + "' is not a list", schema.getName(), schema.getPath());
+			rule = new ListRule(def == null ? null : def.asList());
+		} else if (type.equals("list/str")) {
+			if (def != null && !def.isList())
+				throw new ValidatorException("Type mismatch: default value for node '" + schema.getName() + "' is not a list", schema.getName(), schema.getPath());
+			rule = new StringListRule(def == null ? null : def.asStringList(), compileMatcher(schema));
+		} else if (type.equals("list/num")) {
+			if (def != null && !def.isList())
+				throw new ValidatorException("Type mismatch: default value for node '" + schema.getName() + "' is not a list", schema.getName(), schema.getPath());
+			rule = new NumberListRule(def == null ? null : def.asDoubleList(), compileRanges(schema));
+		} else if (type.equals("collection")) {
+			if (def != null && !def.isCollection())
+				throw new ValidatorException("Type mismtach: default value for node '" + schema.getName() + "' is not a collection", schema.getName(), schema.getPath());
+			YamlNode entry = schema.getNode("collection");
+			rule = new CollectionRule(def == null ? null : def.asCollection().toMapList(), entry == null ? null : compileContainer(entry));
+		} else if (type.equals("str")) {
+			rule = new StringRule(def == null ? null : def.asString(), compileMatcher(schema));
+		} else if (type.equals("num")) {
+			rule = new NumberRule(def == null ? null : def.asObject(), compileRanges(schema));
+		} else if (type.equals("map")) {
+			YamlNode map = schema.getNode("map");
+			rule = new MapRule(map == null || !map.isSet() ? null : compileContainer(map));
+		} else {
+			throw new ValidatorException("Unknown type '" + type + "'", schema.getName(), schema.getPath());
+		}
+		rule.name = schema.getName();
+		rule.schemaPath = schema.getPath();
+		rule.required = schema.getBoolean("required", false);
+		return rule;
+	}
+	
+	private static StringMatcher compileMatcher(YamlNode schema) {
+		if (schema.isList("whitelist"))
+			return new StringMatcher(schema.getStringList("whitelist"), true);
+		else if (schema.isList("blacklist"))
+			return new StringMatcher(schema.getStringList("blacklist"), false);
+		return null;
+	}
+	
+	private static Ranges compileRanges(YamlNode schema) {
+		if (!schema.isCollection("ranges"))
+			return null;
+		YamlCollection ranges = schema.getCollection("ranges");
+		double[] min = new double[ranges.size()], max = new double[ranges.size()];
+		int i = 0;
+		for (YamlCollectionEntry e : ranges) {
+			min[i] = e.isNumber("min") ? e.getDouble("min") : Double.NEGATIVE_INFINITY;
+			max[i] = e.isNumber("max") ? e.getDouble("max") : Double.POSITIVE_INFINITY;
+			i++;
+		}
+		return new Ranges(min, max);
+	}
+	
+	private static String path(YamlNodeContainer container, String name) {
+		String prefix = container.getPath();
+		return prefix.isEmpty() ? name : prefix + "." + name;
+	}
+	
+	private static class ContainerRule {
+		
+		final Rule[]	rules;
+		
+		ContainerRule(List<Rule> rules) {
+			this.rules = rules.toArray(new Rule[rules.size()]);
+		}
+		
+		void check(YamlNodeContainer container, List<ValidatorException> errors) {
+			for (Rule rule : rules) {
+				YamlNode node = container.getNode(rule.name);
+				if (node == null || !node.isSet()) {
+					if (rule.hasDefault())
+						container.getNode(rule.name, true).set(rule.copyDefault());
+					else if (rule.required)
+						errors.add(rule.error("Node '" + path(container, rule.name) + "' is required but not found", path(container, rule.name)));
+					continue;
+				}
+				rule.check(node, errors);
+			}
+		}
+		
+	}
+	
+	private static abstract class Rule {
+		
+		String	name, schemaPath;
+		boolean	required;
+		
+		abstract boolean hasDefault();
+		
+		//a value that can be set in the document being validated
+		abstract Object copyDefault();
+		
+		abstract void check(YamlNode node, List<ValidatorException> errors);
+		
+		ValidatorException error(String message, String path) {
+			return new ValidatorException(message, path, schemaPath);
+		}
+		
+	}
+	
+	private static class ListRule extends Rule {
+		
+		final List<?>	def;
+		
+		ListRule(List<?> def) {
+			this.def = def;
+		}
+		
+		@Override
+		boolean hasDefault() {
+			return def != null;
+		}
+		
+		@Override
+		Object copyDefault() {
+			return new ArrayList<Object>(def);
+		}
+		
+		@Override
+		void check(YamlNode node, List<ValidatorException> errors) {
+			if (!node.isList())
+				errors.add(error("Type mismatch: node '" + node.getPath() + "' is not a list", node.getPath()));
+		}
+		
+	}
+	
+	private static class StringListRule extends ListRule {
+		
+		final StringMatcher	matcher;
+		
+		StringListRule(List<String> def, StringMatcher matcher) {
+			super(def);
+			this.matcher = matcher;
+		}
+		
+		@Override
+		void check(YamlNode node, List<ValidatorException> errors) {
+			if (matcher == null)
+				return;
+			for (String str : node.asStringList()) {
+				if (matcher.whitelist && !matcher.contains(str))
+					errors.add(error("List at '" + node.getPath() + "' contains a non-whitelisted string: '" + str + "'", node.getPath()));
+				else if (!matcher.whitelist && matcher.contains(str))
+					errors.add(error("List at '" + node.getPath() + "' contains a blacklisted string: '" + str + "'", node.getPath()));
+			}
+		}
+		
+	}
+	
+	private static class NumberListRule extends ListRule {
+		
+		final Ranges	ranges;
+		
+		NumberListRule(List<Double> def, Ranges ranges) {
+			super(def);
+			this.ranges = ranges;
+		}
+		
+		@Override
+		void check(YamlNode node, List<ValidatorException> errors) {
+			if (ranges == null)
+				return;
+			for (double n : node.asDoubleList()) {
+				if (!ranges.matches(n))
+					errors.add(error("Value in list at '" + node.getPath() + "' (" + n + ") does not match any of the given ranges", node.getPath()));
+			}
+		}
+		
+	}
+	
+	private static class CollectionRule extends Rule {
+		
+		final List<Map<String, Object>>	def;
+		final ContainerRule				entry;
+		
+		CollectionRule(List<Map<String, Object>> def, ContainerRule entry) {
+			this.def = def;
+			this.entry = entry;
+		}
+		
+		@Override
+		boolean hasDefault() {
+			return def != null;
+		}
+		
+		@Override
+		Object copyDefault() {
+			return new YamlCollection(def);
+		}
+		
+		@Override
+		void check(YamlNode node, List<ValidatorException> errors) {
+			if (!node.isCollection()) {
+				errors.add(error("Type mismatch: node '" + node.getPath() + "' is not a collection", node.getPath()));
+				return;
+			}
+			if (entry == null)
+				return;
+			for (YamlCollectionEntry e : node.asCollection()) {
+				entry.check(e, errors);
+			}
+		}
+		
+	}
+	
+	private static class StringRule extends Rule {
+		
+		final String		def;
+		final StringMatcher	matcher;
+		
+		StringRule(String def, StringMatcher matcher) {
+			this.def = def;
+			this.matcher = matcher;
+		}
+		
+		@Override
+		boolean hasDefault() {
+			return def != null;
+		}
+		
+		@Override
+		Object copyDefault() {
+			return def;
+		}
+		
+		@Override
+		void check(YamlNode node, List<ValidatorException> errors) {
+			if (matcher == null)
+				return;
+			String str = node.asString();
+			if (matcher.whitelist && !matcher.contains(str))
+				errors.add(error("String at '" + node.getPath() + "' is not in whitelist", node.getPath()));
+			else if (!matcher.whitelist && matcher.contains(str))
+				errors.add(error("String at '" + node.getPath() + "' is in blacklist", node.getPath()));
+		}
+		
+	}
+	
+	private static class NumberRule extends Rule {
+		
+		final Object	def;
+		final Ranges	ranges;
+		
+		NumberRule(Object def, Ranges ranges) {
+			this.def = def;
+			this.ranges = ranges;
+		}
+		
+		@Override
+		boolean hasDefault() {
+			return def != null;
+		}
+		
+		@Override
+		Object copyDefault() {
+			return def;
+		}
+		
+		@Override
+		void check(YamlNode node, List<ValidatorException> errors) {
+			if (!node.isNumber()) {
+				errors.add(error("Type mismatch: node '" + node.getPath() + "' is not a number", node.getPath()));
+				return;
+			}
+			//must match one range
+			if (ranges != null && !ranges.matches(node.asDouble()))
+				errors.add(error("Number at '" + node.getPath() + "' did not match any of the given ranges", node.getPath()));
+		}
+		
+	}
+	
+	private static class MapRule extends Rule {
+		
+		final ContainerRule	map;
+		
+		MapRule(ContainerRule map) {
+			this.map = map;
+		}
+		
+		@Override
+		boolean hasDefault() {
+			return false;
+		}
+		
+		@Override
+		Object copyDefault() {
+			return null;
+		}
+		
+		@Override
+		void check(YamlNode node, List<ValidatorException> errors) {
+			if (!node.isSection()) {
+				errors.add(error("Node '" + node.getPath() + "' is not a map/section", node.getPath()));
+				return;
+			}
+			if (map != null)
+				map.check(node, errors);
+		}
+		
+	}
+	
+	private static class StringMatcher {
+		
+		final boolean		whitelist;
+		final Set<String>	literals	= new HashSet<String>();
+		final List<Pattern>	patterns	= new ArrayList<Pattern>();
+		
+		StringMatcher(List<String> list, boolean whitelist) {
+			this.whitelist = whitelist;
+			for (String s : list) {
+				//entries like /regex/ are regular expressions
+				if (s.length() >= 2 && s.startsWith("/") && s.endsWith("/"))
+					patterns.add(Pattern.compile(s.substring(1, s.length() - 1)));
+				literals.add(s.toLowerCase());
+			}
+		}
+		
+		boolean contains(String str) {
+			if (str == null)
+				return false;
+			if (literals.contains(str.toLowerCase()))
+				return true;
+			for (Pattern p : patterns) {
+				if (p.matcher(str).matches())
+					return true;
+			}
+			return false;
+		}
+		
+	}
+	
+	private static class Ranges {
+		
+		final double[]	min, max;
+		
+		Ranges(double[] min, double[] max) {
+			this.min = min;
+			this.max = max;
+		}
+		
+		boolean matches(double num) {
+			for (int i = 0; i < min.length; i++) {
+				if (num >= min[i] && num <= max[i])
+					return true; //matched a range
+			}
+			return false;
+		}
+		
+	}
+	
+}
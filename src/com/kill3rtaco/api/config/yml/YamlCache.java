@@ -0,0 +1,304 @@
+package com.kill3rtaco.api.config.yml;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A binary copy of a YAML file, written next to it. The cache remembers the size, last modified time and CRC32 of the
+ * file it was made from, and is only used while the size and CRC32 of the file still match. Reading a cache reads it
+ * into memory at once and adds its nodes straight to the document, without going through SnakeYAML.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Config 1.1
+ * @see YamlDocument#setUseBinaryCache(boolean)
+ */
+class YamlCache {
+	
+	private static final int		MAGIC		= 0x54594331;						//TYC1
+	private static final int		HEADER_SIZE	= 4 + 8 + 8 + 4;
+	private static final Charset	UTF_8		= Charset.forName("UTF-8");
+	
+	private static final byte		SECTION		= 0, NULL = 1, STRING = 2, INT = 3, LONG = 4, DOUBLE = 5, BOOLEAN = 6,
+			LIST = 7, MAP = 8;
+	
+	static File getCacheFile(File source) {
+		source = source.getAbsoluteFile();
+		return new File(source.getParentFile(), source.getName() + ".cache");
+	}
+	
+	/**
+	 * Add the nodes in the cache of a file to a container, if the cache is up to date
+	 * 
+	 * @return true if the nodes were added, false if the file has to be parsed
+	 */
+	static boolean load(File source, YamlNodeContainer container) {
+		File cache = getCacheFile(source);
+		if (!cache.isFile() || !source.isFile())
+			return false;
+		try (FileChannel channel = FileChannel.open(cache.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+				return false;
+			//not mapped, a mapped file stays open until the buffer is garbage collected
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining() && channel.read(buffer) != -1)
+				;
+			buffer.flip();
+			if (buffer.getInt() != MAGIC)
+				return false;
+			long size = buffer.getLong();
+			buffer.getLong(); //the modified time, a file changed twice within its resolution keeps the same time
+			int crc = buffer.getInt();
+			if (size != source.length() || crc != crc(source))
+				return false;
+			readNodes(buffer, container);
+			return true;
+		} catch (Exception e) {
+			//a damaged cache is thrown away, the file is parsed instead
+			for (YamlNode n : new ArrayList<YamlNode>(container.getNodes())) {
+				container.removeChild(n);
+			}
+			System.out.println("Config -> Could not read " + cache + ": " + e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Write the cache of a file. The container must hold the same values as the file.
+	 */
+	static void write(File source, YamlNodeContainer container) {
+		if (!source.isFile())
+			return;
+		File cache = getCacheFile(source);
+		Path target = cache.toPath();
+		Path temp = target.resolveSibling(cache.getName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+				out.writeInt(MAGIC);
+				out.writeLong(source.length());
+				out.writeLong(source.lastModified());
+				out.writeInt(crc(source));
+				writeNodes(out, container);
+				out.flush();
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			//values SnakeYAML can read but the cache cannot store, such as dates, end up here
+			try {
+				Files.deleteIfExists(temp);
+				Files.deleteIfExists(target);
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+	
+	private static int crc(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+			}
+		}
+		return (int) crc.getValue();
+	}
+	
+	private static void writeNodes(DataOutputStream out, YamlNodeContainer container) throws IOException {
+		List<YamlNode> nodes = container.getNodes();
+		out.writeInt(nodes.size());
+		for (YamlNode n : nodes) {
+			writeString(out, n.getName());
+			if (n.getLazyValues() != null) {
+				out.writeByte(SECTION);
+				writeSection(out, n.getLazyValues());
+			} else if (n.isSection()) {
+				out.writeByte(SECTION);
+				writeNodes(out, n);
+			} else {
+				writeValue(out, n.asObject());
+			}
+		}
+	}
+	
+	//the values of a section that was never turned into nodes
+	private static void writeSection(DataOutputStream out, Map<?, ?> values) throws IOException {
+		out.writeInt(values.size());
+		for (Map.Entry<?, ?> e : values.entrySet()) {
+			if (!(e.getKey() instanceof String))
+				throw new IOException("Cannot cache key " + e.getKey());
+			writeString(out, (String) e.getKey());
+			Object value = e.getValue();
+			if (value instanceof Map && !((Map<?, ?>) value).isEmpty()) {
+				out.writeByte(SECTION);
+				writeSection(out, (Map<?, ?>) value);
+			} else {
+				writeValue(out, value instanceof Map ? null : value);
+			}
+		}
+	}
+	
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof YamlCollection)
+			value = ((YamlCollection) value).toMapList();
+		
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INT);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			out.writeByte(LIST);
+			out.writeInt(list.size());
+			for (Object o : list) {
+				writeValue(out, o);
+			}
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(MAP);
+			out.writeInt(map.size());
+			for (Map.Entry<?, ?> e : map.entrySet()) {
+				if (!(e.getKey() instanceof String))
+					throw new IOException("Cannot cache key " + e.getKey());
+				writeString(out, (String) e.getKey());
+				writeValue(out, e.getValue());
+			}
+		} else {
+			throw new IOException("Cannot cache " + value.getClass().getName());
+		}
+	}
+	
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static void readNodes(ByteBuffer buffer, YamlNodeContainer container) throws IOException {
+		int count = count(buffer);
+		for (int i = 0; i < count; i++) {
+			YamlNode node = container.addNode(readString(buffer));
+			byte type = buffer.get();
+			if (type == SECTION && container.options().lazySections) {
+				Map<String, Object> values = readSection(buffer);
+				if (!values.isEmpty())
+					node.defer(values);
+				continue;
+			} else if (type == SECTION) {
+				readNodes(buffer, node);
+				continue;
+			}
+			Object value = readValue(buffer, type);
+			//same as addNodes(Map), a list with a map in it is a collection
+			if (value instanceof List) {
+				@SuppressWarnings("unchecked")
+				List<Object> list = (List<Object>) value;
+				for (Object o : list) {
+					if (o instanceof Map) {
+						value = container.makeCollection(list);
+						break;
+					}
+				}
+			}
+			node.set(value);
+		}
+	}
+	
+	private static Map<String, Object> readSection(ByteBuffer buffer) throws IOException {
+		int count = count(buffer);
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < count; i++) {
+			String name = readString(buffer);
+			byte type = buffer.get();
+			values.put(name, type == SECTION ? readSection(buffer) : readValue(buffer, type));
+		}
+		return values;
+	}
+	
+	private static Object readValue(ByteBuffer buffer, byte type) throws IOException {
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString(buffer);
+			case INT:
+				return buffer.getInt();
+			case LONG:
+				return buffer.getLong();
+			case DOUBLE:
+				return buffer.getDouble();
+			case BOOLEAN:
+				return buffer.get() != 0;
+			case LIST:
+				int size = count(buffer);
+				List<Object> list = new ArrayList<Object>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(buffer, buffer.get()));
+				}
+				return list;
+			case MAP:
+				int entries = count(buffer);
+				Map<String, Object> map = new LinkedHashMap<String, Object>();
+				for (int i = 0; i < entries; i++) {
+					String key = readString(buffer);
+					map.put(key, readValue(buffer, buffer.get()));
+				}
+				return map;
+			default:
+				throw new IOException("Unknown value type " + type);
+		}
+	}
+	
+	private static String readString(ByteBuffer buffer) throws IOException {
+		byte[] bytes = new byte[count(buffer)];
+		buffer.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+	
+	//every entry takes at least a byte, so a damaged count cannot make a huge array
+	private static int count(ByteBuffer buffer) throws IOException {
+		int count = buffer.getInt();
+		if (count < 0 || count > buffer.remaining())
+			throw new IOException("Invalid length " + count);
+		return count;
+	}
+	
+}
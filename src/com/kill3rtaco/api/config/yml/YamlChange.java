@@ -0,0 +1,86 @@
+package com.kill3rtaco.api.config.yml;
+
+/**
+ * A value that changed when a {@link YamlFileWatcher} reloaded a document
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Config 1.1
+ */
+public class YamlChange {
+	
+	private Type	_type;
+	private String	_path;
+	private Object	_oldValue, _newValue;
+	
+	YamlChange(Type type, String path, Object oldValue, Object newValue) {
+		_type = type;
+		_path = path;
+		_oldValue = oldValue;
+		_newValue = newValue;
+	}
+	
+	/**
+	 * Get what happened to the value
+	 * 
+	 * @return the type of change
+	 * @since TacoAPI/Config 1.1
+	 */
+	public Type getType() {
+		return _type;
+	}
+	
+	/**
+	 * Get the path of the value that changed
+	 * 
+	 * @return the path
+	 * @since TacoAPI/Config 1.1
+	 */
+	public String getPath() {
+		return _path;
+	}
+	
+	/**
+	 * Get the value before the document was reloaded
+	 * 
+	 * @return the old value, or null if the value was added
+	 * @since TacoAPI/Config 1.1
+	 */
+	public Object getOldValue() {
+		return _oldValue;
+	}
+	
+	/**
+	 * Get the value after the document was reloaded
+	 * 
+	 * @return the new value, or null if the value was removed
+	 * @since TacoAPI/Config 1.1
+	 */
+	public Object getNewValue() {
+		return _newValue;
+	}
+	
+	@Override
+	public String toString() {
+		return _type + " " + _path + ": " + _oldValue + " -> " + _newValue;
+	}
+	
+	public enum Type {
+		
+		/**
+		 * The value did not exist before
+		 */
+		ADDED,
+		
+		/**
+		 * The value exists both before and after, but is different
+		 */
+		CHANGED,
+		
+		/**
+		 * The value no longer exists
+		 */
+		REMOVED;
+	}
+	
+}
@@ -0,0 +1,26 @@
+package com.kill3rtaco.api.config.yml;
+
+import java.util.List;
+
+/**
+ * Listens for changes a {@link YamlFileWatcher} makes to a document when its file changes
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Config 1.1
+ * @see YamlFileWatcher#watch(YamlDocument, YamlChangeListener)
+ */
+public interface YamlChangeListener {
+	
+	/**
+	 * Called after the changes were applied to the document. Only values that actually changed are given; if the file
+	 * was saved without changing anything, this is not called.
+	 * 
+	 * @param document
+	 *            the document that was reloaded
+	 * @param changes
+	 *            the values that changed
+	 */
+	public void onChange(YamlDocument document, List<YamlChange> changes);
+	
+}
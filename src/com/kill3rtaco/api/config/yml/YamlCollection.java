@@ -39,6 +39,16 @@ public class YamlCollection implements Iterable<YamlCollectionEntry> {
 		return _parent;
 	}
 	
+	void modified() {
+		if (_parent != null)
+			_parent.modified();
+	}
+	
+	void nodeCreated() {
+		if (_parent != null)
+			_parent.nodeCreated();
+	}
+	
 	/**
 	 * Add a new entry to this collection
 	 * 
@@ -48,6 +58,7 @@ public class YamlCollection implements Iterable<YamlCollectionEntry> {
 	public YamlCollectionEntry newEntry() {
 		YamlCollectionEntry d = new YamlCollectionEntry(_collection.size(), this);
 		_collection.add(d);
+		modified();
 		return d;
 	}
 	
@@ -23,6 +23,16 @@ public class YamlCollectionEntry extends YamlNodeContainer {
 		return _parent;
 	}
 	
+	@Override
+	void modified() {
+		_parent.modified();
+	}
+	
+	@Override
+	void nodeCreated() {
+		_parent.nodeCreated();
+	}
+	
 	public String getPath() {
 		String index = "$" + _index;
 		YamlNode _collParent = _parent.getParent();
@@ -2,7 +2,19 @@ package com.kill3rtaco.api.config.yml;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author KILL3RTACO
@@ -11,8 +23,38 @@ import java.util.Map;
  */
 public class YamlDocument extends YamlNodeContainer {
 	
-	private File	_file;
-	private String	_header	= null;
+	private static final ScheduledExecutorService	WRITER;
+	private static final Set<YamlDocument>			_pendingSaves		= Collections.newSetFromMap(new ConcurrentHashMap<YamlDocument, Boolean>());
+	private static volatile Executor				_snapshotExecutor;
+	private static volatile boolean					_binaryCache;
+	private static final long						PUBLISH_DELAY		= 50;
+	
+	private File									_file;
+	private String									_header				= null;
+	private volatile int							_modCount, _snapshotModCount, _nodesCreated;
+	private int										_writtenModCount	= -1;
+	//the save file as it was last written, to tell it apart from changes made by something else
+	private long									_writtenTime		= -1, _writtenSize = -1;
+	private ScheduledFuture<?>						_pendingSave, _pendingPublish;
+	private volatile YamlSnapshot					_published;
+	private Object									_pendingLock		= new Object(), _writeLock = new Object();
+	private long									_created			= System.currentTimeMillis();
+	private AtomicLong								_saves				= new AtomicLong(), _bytesWritten = new AtomicLong(),
+			_coalesced = new AtomicLong();
+	
+	static {
+		//documents waiting to be saved are written by this thread
+		WRITER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TacoAPI-Config-Writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+			
+		});
+	}
 	
 	/**
 	 * Construct an empty YamlDocument
@@ -32,7 +74,30 @@ public class YamlDocument extends YamlNodeContainer {
 	 * @since TacoAPI/Config 1.0
 	 */
 	public YamlDocument(File file) {
-		this(YamlProcessor.getValues(file));
+		this(file, new YamlDocumentOptions());
+	}
+	
+	/**
+	 * Construct a YamlDocument from a file, using the given options while loading its contents. Use this instead of
+	 * {@code setOptions(...)} for options that change how the file is loaded, such as
+	 * {@link YamlDocumentOptions#lazySections}.
+	 * 
+	 * @param file
+	 *            the file to load from
+	 * @param options
+	 *            the options for this document
+	 * @since TacoAPI/Config 1.1
+	 */
+	public YamlDocument(File file, YamlDocumentOptions options) {
+		setOptions(options);
+		if (!_binaryCache || !YamlCache.load(file, this)) {
+			Map<String, Object> values = YamlProcessor.getValues(file);
+			if (values != null)
+				addNodes(values);
+			if (_binaryCache)
+				YamlCache.write(file, this);
+		}
+		_snapshotModCount = _modCount; //nothing to save yet
 		setSaveFile(file);
 	}
 	
@@ -68,6 +133,7 @@ public class YamlDocument extends YamlNodeContainer {
 	 */
 	public YamlDocument(Map<String, Object> map) {
 		addNodes(map);
+		_snapshotModCount = _modCount; //nothing to save yet
 	}
 	
 	/**
@@ -104,6 +170,7 @@ public class YamlDocument extends YamlNodeContainer {
 	 */
 	public void setHeader(String header) {
 		_header = header;
+		modified();
 	}
 	
 	/**
@@ -171,12 +238,374 @@ public class YamlDocument extends YamlNodeContainer {
 		//are always handled in one class
 		setSaveFile(file);
 		if (file != null) {
-			YamlProcessor.save(this);
+			int modCount = _modCount;
+			_snapshotModCount = modCount;
+			write(this, modCount);
 			return true;
 		}
 		return false;
 	}
 	
+	private void write(YamlDocument document, int modCount) {
+		synchronized (_writeLock) {
+			//a newer version may already have been saved
+			if (modCount < _writtenModCount)
+				return;
+			long bytes = YamlProcessor.save(document);
+			if (bytes < 0)
+				return;
+			_writtenModCount = modCount;
+			File file = document.getSaveFile();
+			_writtenTime = file.lastModified();
+			_writtenSize = file.length();
+			if (_binaryCache)
+				YamlCache.write(document.getSaveFile(), document);
+			_saves.incrementAndGet();
+			_bytesWritten.addAndGet(bytes);
+		}
+	}
+	
+	/**
+	 * Save this document after {@link YamlDocumentOptions#saveDelay} milliseconds, in the background. If a save is
+	 * already waiting, this does nothing, so that every change made in the meantime is written at once. When the
+	 * delay is over, a copy of the document is taken using the snapshot executor, and the copy is written to the save
+	 * file by a background thread. If the save delay is 0, this is the same as {@code save()}.
+	 * 
+	 * @since TacoAPI/Config 1.1
+	 * @see #setSnapshotExecutor(Executor)
+	 * @see #flush()
+	 */
+	public void saveLater() {
+		long delay = options().saveDelay;
+		if (delay <= 0) {
+			save();
+			return;
+		}
+		synchronized (_pendingLock) {
+			if (_pendingSave != null) {
+				_coalesced.incrementAndGet();
+				return;
+			}
+			_pendingSaves.add(this);
+			_pendingSave = schedule(new Runnable() {
+				
+				@Override
+				public void run() {
+					takeSnapshot();
+				}
+				
+			}, delay);
+		}
+	}
+	
+	//run a task on the snapshot executor after a delay
+	private static ScheduledFuture<?> schedule(final Runnable task, long delay) {
+		return WRITER.schedule(new Runnable() {
+			
+			@Override
+			public void run() {
+				Executor executor = _snapshotExecutor;
+				if (executor == null)
+					task.run();
+				else
+					executor.execute(task);
+			}
+			
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+	
+	//runs on the snapshot executor, which is the thread that changes this document
+	private void takeSnapshot() {
+		synchronized (_pendingLock) {
+			if (_pendingSave == null)
+				return; //flushed in the meantime
+			_pendingSave = null;
+		}
+		_pendingSaves.remove(this);
+		if (_file == null || !isDirty())
+			return;
+		final int modCount = _modCount;
+		final YamlDocument snapshot = copy();
+		_snapshotModCount = modCount;
+		WRITER.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				write(snapshot, modCount);
+			}
+			
+		});
+	}
+	
+	//a copy of this document that can be written while this one keeps changing
+	private YamlDocument copy() {
+		YamlDocument copy = new YamlDocument();
+		copy._file = _file;
+		copy._header = _header;
+		copyNodes(this, copy);
+		return copy;
+	}
+	
+	private static void copyNodes(YamlNodeContainer from, YamlNodeContainer to) {
+		for (YamlNode n : from) {
+			copyNode(n, to);
+		}
+	}
+	
+	//copy a node and everything in it into another container
+	@SuppressWarnings("unchecked")
+	static YamlNode copyNode(YamlNode node, YamlNodeContainer to) {
+		YamlNode copy = to.addNode(node.getName());
+		copy.setComment(node.getComment());
+		if (node.getLazyValues() != null) {
+			//deferred values are never changed, the copy can use them too
+			copy.defer(node.getLazyValues());
+		} else if (node.isSection()) {
+			copyNodes(node, copy);
+		} else {
+			Object value = node.asObject();
+			if (value instanceof YamlCollection)
+				value = new YamlCollection(((YamlCollection) value).toMapList());
+			else if (value instanceof List)
+				value = new ArrayList<Object>((List<Object>) value);
+			copy.set(value);
+		}
+		return copy;
+	}
+	
+	/**
+	 * Write this document right away if a save is waiting or it was changed since it was last saved. This should be
+	 * called on the thread that changes this document.
+	 * 
+	 * @since TacoAPI/Config 1.1
+	 */
+	public void flush() {
+		ScheduledFuture<?> pending;
+		synchronized (_pendingLock) {
+			pending = _pendingSave;
+			_pendingSave = null;
+		}
+		_pendingSaves.remove(this);
+		if (pending != null)
+			pending.cancel(false);
+		if (_file != null && isDirty())
+			save();
+	}
+	
+	/**
+	 * Write every document that is waiting to be saved, and wait for the background thread to finish writing. TacoAPI
+	 * calls this whenever a {@link com.kill3rtaco.api.bukkit.plugin.TacoPlugin TacoPlugin} is disabled.
+	 * 
+	 * @since TacoAPI/Config 1.1
+	 */
+	public static void flushAll() {
+		for (YamlDocument document : new ArrayList<YamlDocument>(_pendingSaves)) {
+			document.flush();
+		}
+		try {
+			//the writer runs tasks in order, so this finishes after every write already queued
+			WRITER.submit(new Runnable() {
+				
+				@Override
+				public void run() {
+				}
+				
+			}).get(30, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Set the executor copies of documents are taken with before they are written in the background. Documents must
+	 * not be changed while they are copied, so this should run tasks on the thread that changes documents. By default,
+	 * copies are taken on the background thread.
+	 * 
+	 * @param executor
+	 *            the executor, or null to take copies on the background thread
+	 * @since TacoAPI/Config 1.1
+	 */
+	public static void setSnapshotExecutor(Executor executor) {
+		_snapshotExecutor = executor;
+	}
+	
+	/**
+	 * Set whether documents loaded from a file should use a binary cache. The cache is written next to the file, as
+	 * {@code <file>.cache}, whenever the file is parsed or saved. Documents loaded while the file has not changed since
+	 * are read from the cache instead of being parsed. Disabled by default.
+	 * 
+	 * @param useCache
+	 *            true to use binary caches
+	 * @since TacoAPI/Config 1.1
+	 */
+	public static void setUseBinaryCache(boolean useCache) {
+		_binaryCache = useCache;
+	}
+	
+	/**
+	 * Returns true if documents loaded from a file use a binary cache
+	 * 
+	 * @return true if binary caches are used
+	 * @since TacoAPI/Config 1.1
+	 * @see #setUseBinaryCache(boolean)
+	 */
+	public static boolean usesBinaryCache() {
+		return _binaryCache;
+	}
+	
+	/**
+	 * Returns true if this document was changed since it was last saved
+	 * 
+	 * @return true if this document has unsaved changes
+	 * @since TacoAPI/Config 1.1
+	 */
+	public boolean isDirty() {
+		return _modCount != _snapshotModCount;
+	}
+	
+	//the save file already has every change, such as after it was reloaded
+	void markSaved() {
+		_snapshotModCount = _modCount;
+	}
+	
+	//true if the file is still the one this document last wrote
+	boolean wroteFile(File file) {
+		synchronized (_writeLock) {
+			return file.lastModified() == _writtenTime && file.length() == _writtenSize;
+		}
+	}
+	
+	/**
+	 * Get how many times this document was changed. This increases every time a node is added, removed or set.
+	 * 
+	 * @return the modification count
+	 * @since TacoAPI/Config 1.1
+	 */
+	public int getModCount() {
+		return _modCount;
+	}
+	
+	/**
+	 * Get how many nodes were created in this document. With {@link YamlDocumentOptions#lazySections}, this only
+	 * counts the nodes of the sections that were used.
+	 * 
+	 * @return the amount of nodes created
+	 * @since TacoAPI/Config 1.1
+	 * @see #getDeferredSectionCount()
+	 */
+	public int getNodeCount() {
+		return _nodesCreated;
+	}
+	
+	/**
+	 * Get how many sections of this document were not turned into nodes yet, because they were never used. This is
+	 * always 0 unless {@link YamlDocumentOptions#lazySections} is set. This should be called on the thread that
+	 * changes this document.
+	 * 
+	 * @return the amount of deferred sections
+	 * @since TacoAPI/Config 1.1
+	 */
+	public int getDeferredSectionCount() {
+		return countDeferred();
+	}
+	
+	/**
+	 * Get how many times this document was written to its save file
+	 * 
+	 * @return the amount of saves
+	 * @since TacoAPI/Config 1.1
+	 */
+	public long getSaveCount() {
+		return _saves.get();
+	}
+	
+	/**
+	 * Get the average amount of saves per second since this document was created
+	 * 
+	 * @return the saves per second
+	 * @since TacoAPI/Config 1.1
+	 */
+	public double getSavesPerSecond() {
+		long elapsed = System.currentTimeMillis() - _created;
+		return elapsed <= 0 ? 0 : _saves.get() * 1000D / elapsed;
+	}
+	
+	/**
+	 * Get how many bytes were written to the save file of this document
+	 * 
+	 * @return the amount of bytes written
+	 * @since TacoAPI/Config 1.1
+	 */
+	public long getBytesWritten() {
+		return _bytesWritten.get();
+	}
+	
+	/**
+	 * Get how many calls to {@code saveLater()} were merged into a save that was already waiting
+	 * 
+	 * @return the amount of saves that did not need to be written
+	 * @since TacoAPI/Config 1.1
+	 */
+	public long getCoalescedCount() {
+		return _coalesced.get();
+	}
+	
+	/**
+	 * Get the latest snapshot of this document. If no snapshot was taken yet, one is taken first, which must happen on
+	 * the thread that changes this document. The returned snapshot can be read from any thread.
+	 * 
+	 * @return the latest snapshot
+	 * @since TacoAPI/Config 1.1
+	 * @see YamlDocumentOptions#publishSnapshots
+	 */
+	public YamlSnapshot getSnapshot() {
+		YamlSnapshot snapshot = _published;
+		if (snapshot == null)
+			snapshot = publishSnapshot();
+		return snapshot;
+	}
+	
+	/**
+	 * Take a new snapshot of this document and make it the one returned by {@code getSnapshot()}. This must be called
+	 * on the thread that changes this document.
+	 * 
+	 * @return the new snapshot
+	 * @since TacoAPI/Config 1.1
+	 */
+	public YamlSnapshot publishSnapshot() {
+		YamlSnapshot snapshot = new YamlSnapshot(this);
+		_published = snapshot;
+		return snapshot;
+	}
+	
+	@Override
+	void nodeCreated() {
+		_nodesCreated++;
+	}
+	
+	@Override
+	void modified() {
+		_modCount++;
+		if (options().publishSnapshots) {
+			synchronized (_pendingLock) {
+				if (_pendingPublish != null)
+					return;
+				//changes made in the meantime are part of the same snapshot
+				_pendingPublish = schedule(new Runnable() {
+					
+					@Override
+					public void run() {
+						synchronized (_pendingLock) {
+							_pendingPublish = null;
+						}
+						publishSnapshot();
+					}
+					
+				}, PUBLISH_DELAY);
+			}
+		}
+	}
+	
 	public String getPath() {
 		return "";
 	}
@@ -13,13 +13,46 @@ public class YamlDocumentOptions {
 	 * Set to true if the document should save any default value when a
 	 * {@code get*(String path, Object def)} method is called. Default: true
 	 */
-	public boolean	saveDefaults	= true;
+	public boolean	saveDefaults		= true;
 	
 	/**
 	 * Set to true if the document should be saved whenever a {@code set(...)}
 	 * method is called. Default: true
 	 */
-	public boolean	saveOnSet		= true;
+	public boolean	saveOnSet			= true;
+	
+	/**
+	 * How long (in milliseconds) to wait before saving the document in the
+	 * background after it was changed. Changes made while waiting are saved
+	 * together, so changing many values only writes the file once. Set to 0
+	 * to save right away, on the thread that changed the document. Default: 0
+	 * 
+	 * @see YamlDocument#saveLater()
+	 */
+	public long		saveDelay			= 0;
+	
+	/**
+	 * Set to true if the document should take a new {@link YamlSnapshot}
+	 * shortly after it was changed. The snapshot is taken using the snapshot
+	 * executor of YamlDocument. Default: false
+	 * 
+	 * @see YamlDocument#getSnapshot()
+	 */
+	public boolean	publishSnapshots	= false;
+	
+	/**
+	 * Set to true if the sections of a document loaded from a file should
+	 * only be turned into nodes once they are used. This saves time and
+	 * memory for large files of which only a few sections are used, such as
+	 * player data. Copies and saves of the document keep unused sections as
+	 * they are, but snapshots, file watchers and anything else that visits
+	 * every node create the nodes of every section. Only used by
+	 * {@link YamlDocument#YamlDocument(java.io.File, YamlDocumentOptions)}.
+	 * Default: false
+	 * 
+	 * @see YamlDocument#getDeferredSectionCount()
+	 */
+	public boolean	lazySections		= false;
 	
 	/**
 	 * Set to an array of synonyms for the boolean true. For example, say the
@@ -28,6 +61,6 @@ public class YamlDocumentOptions {
 	 * (ignoring case). Either match, then true is returned. Default: empty
 	 * array
 	 */
-	public String[]	trueSynonyms	= new String[]{};
+	public String[]	trueSynonyms		= new String[]{};
 	
 }
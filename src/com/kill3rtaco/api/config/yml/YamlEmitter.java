@@ -0,0 +1,227 @@
+package com.kill3rtaco.api.config.yml;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Writes a YamlDocument to its save file. The document is streamed through one buffer into a temporary file next to
+ * the save file, which is forced to disk and then moved over the save file, so a crash while saving never leaves a
+ * half-written file behind.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Config 1.1
+ */
+class YamlEmitter extends Writer {
+	
+	private static final int			BUFFER_SIZE	= 64 * 1024;
+	private static final Pattern		PLAIN		= Pattern.compile("[A-Za-z][A-Za-z0-9_\\-]*");
+	//plain strings that SnakeYAML would read back as something else
+	private static final Pattern		RESERVED	= Pattern.compile("yes|no|true|false|on|off|null", Pattern.CASE_INSENSITIVE);
+	//replaced, never changed, by whichever thread needs a deeper indent
+	private static volatile String[]	_indents	= new String[]{""};
+	
+	private Yaml						_yaml;
+	private String						_newline;
+	private char						_lastNewlineChar;
+	private Writer						_out;
+	private String						_indent;
+	private boolean						_indentNext;
+	
+	private YamlEmitter(Yaml yaml, String newline, Writer out) {
+		_yaml = yaml;
+		_newline = newline;
+		_lastNewlineChar = newline.charAt(newline.length() - 1);
+		_out = out;
+	}
+	
+	/**
+	 * Write a document to its save file
+	 * 
+	 * @return the amount of bytes written
+	 */
+	static long save(Yaml yaml, String newline, YamlDocument document) throws IOException {
+		File file = document.getSaveFile().getAbsoluteFile();
+		file.getParentFile().mkdirs();
+		Path target = file.toPath();
+		Path temp = target.resolveSibling(file.getName() + ".tmp");
+		long size;
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), Charset.defaultCharset()),
+					BUFFER_SIZE);
+			YamlEmitter emitter = new YamlEmitter(yaml, newline, out);
+			String header = document.getHeader();
+			if (header != null && !header.isEmpty()) {
+				emitter.comment("", header, "\n");
+				out.write(newline);
+			}
+			emitter.nodes(document.getNodes(), 0);
+			out.flush();
+			channel.force(true);
+			size = channel.size();
+		}
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return size;
+	}
+	
+	private static String indent(int depth) {
+		String[] indents = _indents;
+		if (depth >= indents.length) {
+			String[] grown = new String[Math.max(depth + 1, indents.length * 2)];
+			System.arraycopy(indents, 0, grown, 0, indents.length);
+			for (int i = indents.length; i < grown.length; i++) {
+				grown[i] = grown[i - 1] + "  "; //2 spaces
+			}
+			_indents = indents = grown;
+		}
+		return indents[depth];
+	}
+	
+	private void comment(String indent, String comment, String newline) throws IOException {
+		for (String s : comment.split("\n")) {
+			_out.write(indent);
+			_out.write("# ");
+			_out.write(s);
+			_out.write(newline);
+		}
+	}
+	
+	private void nodes(List<YamlNode> nodes, int depth) throws IOException {
+		String indent = indent(depth);
+		for (YamlNode n : nodes) {
+			if (n.getComment() != null) {
+				_out.write(_newline);
+				comment(indent, n.getComment(), _newline);
+			}
+			
+			_out.write(indent);
+			_out.write(name(n.getName()));
+			if (n.getLazyValues() != null) {
+				//sections that were never used are written without creating their nodes
+				_out.write(":");
+				_out.write(_newline);
+				values(n.getLazyValues(), depth + 1);
+			} else if (n.isSection()) {
+				_out.write(":");
+				_out.write(_newline);
+				nodes(n.getNodes(), depth + 1);
+			} else {
+				_out.write(": ");
+				value(n.asObject(), indent);
+			}
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void values(Map<String, Object> values, int depth) throws IOException {
+		String indent = indent(depth);
+		for (Map.Entry<String, Object> e : values.entrySet()) {
+			Object value = e.getValue();
+			_out.write(indent);
+			_out.write(name(String.valueOf(e.getKey())));
+			if (value instanceof Map && !((Map<?, ?>) value).isEmpty()) {
+				_out.write(":");
+				_out.write(_newline);
+				values((Map<String, Object>) value, depth + 1);
+			} else {
+				_out.write(": ");
+				//an empty section is a node without a value
+				value(value instanceof Map ? null : value, indent);
+			}
+		}
+	}
+	
+	private static String name(String name) {
+		if (name.isEmpty())
+			return "''";
+		else if (isDigits(name))
+			return "'" + name + "'";
+		return name;
+	}
+	
+	private void value(Object value, String indent) throws IOException {
+		if (value instanceof YamlCollection)
+			value = ((YamlCollection) value).toMapList();
+		
+		if (value instanceof Integer || value instanceof Long || value instanceof Boolean
+				|| (value instanceof String && isPlain((String) value))) {
+			//SnakeYAML writes these as they are
+			_out.write(value.toString());
+			_out.write(_newline);
+		} else if (value instanceof List) {
+			//lists start on the next line, with every line indented
+			_out.write(_newline);
+			_indent = indent;
+			_indentNext = true;
+			_yaml.dump(value, this);
+			_indentNext = false;
+			_indent = null;
+		} else {
+			_yaml.dump(value, this);
+		}
+	}
+	
+	private static boolean isDigits(String str) {
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c < '0' || c > '9')
+				return false;
+		}
+		return true;
+	}
+	
+	private static boolean isPlain(String str) {
+		return PLAIN.matcher(str).matches() && !RESERVED.matcher(str).matches();
+	}
+	
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		if (_indent == null) {
+			_out.write(cbuf, off, len);
+			return;
+		}
+		int start = off, end = off + len;
+		for (int i = off; i < end; i++) {
+			if (_indentNext) {
+				_out.write(cbuf, start, i - start);
+				_out.write(_indent);
+				_indentNext = false;
+				start = i;
+			}
+			if (cbuf[i] == _lastNewlineChar)
+				_indentNext = true;
+		}
+		_out.write(cbuf, start, end - start);
+	}
+	
+	@Override
+	public void flush() {
+		//SnakeYAML flushes after every value, the file is only flushed once at the end
+	}
+	
+	@Override
+	public void close() {
+	}
+	
+}
@@ -0,0 +1,327 @@
+package com.kill3rtaco.api.config.yml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads documents when their save files are changed by something else, such as a server owner editing them. Files
+ * are parsed on a background thread. The result is compared with the document, and only the values that changed are
+ * applied to it, using the executor given to the watcher, after which the listener of the document is told exactly
+ * which values changed. Comments in the document are kept. Files the document saved itself are not reloaded. A
+ * document with unsaved changes is not reloaded either, and neither are documents whose file was removed or emptied;
+ * these keep their values, and the reason is printed.
+ * 
+ * <pre>
+ * YamlFileWatcher watcher = new YamlFileWatcher(new MainThreadExecutor(plugin));
+ * watcher.watch(config, new YamlChangeListener() {
+ * 	public void onChange(YamlDocument document, List&lt;YamlChange&gt; changes) {
+ * 		...
+ * 	}
+ * });
+ * </pre>
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Config 1.1
+ */
+public class YamlFileWatcher {
+	
+	//editors often write a file several times in a row
+	private static final long				SETTLE_TIME	= 100;
+	
+	private WatchService					_service;
+	private Executor						_executor;
+	private Thread							_thread;
+	private volatile boolean				_closed;
+	private Map<Path, WatchKey>				_keys		= new HashMap<Path, WatchKey>();
+	private Map<Path, List<Watched>>		_watched	= new HashMap<Path, List<Watched>>();
+	private Map<Path, Long>					_changed	= new HashMap<Path, Long>();
+	private Object							_lock		= new Object();
+	
+	/**
+	 * Create a watcher. The watcher starts its background thread once the first document is watched.
+	 * 
+	 * @param executor
+	 *            the executor changes are applied and listeners are called with. This should run tasks on the thread
+	 *            that changes the watched documents. If null, changes are applied on the background thread.
+	 * @throws IOException
+	 *             if the file system cannot be watched
+	 * @since TacoAPI/Config 1.1
+	 */
+	public YamlFileWatcher(Executor executor) throws IOException {
+		_service = FileSystems.getDefault().newWatchService();
+		_executor = executor;
+	}
+	
+	/**
+	 * Start watching the save file of a document
+	 * 
+	 * @param document
+	 *            the document to reload when its file changes
+	 * @param listener
+	 *            the listener to call with the changes, or null
+	 * @throws IOException
+	 *             if the folder of the file cannot be watched
+	 * @throws IllegalArgumentException
+	 *             if the document has no save file
+	 * @since TacoAPI/Config 1.1
+	 */
+	public void watch(YamlDocument document, YamlChangeListener listener) throws IOException {
+		File file = document.getSaveFile();
+		if (file == null)
+			throw new IllegalArgumentException("document has no save file");
+		Path path = file.getAbsoluteFile().toPath();
+		Path dir = path.getParent();
+		synchronized (_lock) {
+			if (_closed)
+				throw new IOException("Watcher is closed");
+			if (!_keys.containsKey(dir))
+				_keys.put(dir, dir.register(_service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+			List<Watched> list = _watched.get(path);
+			if (list == null)
+				_watched.put(path, list = new ArrayList<Watched>());
+			list.add(new Watched(document, listener));
+			if (_thread == null) {
+				_thread = new Thread(new Runnable() {
+					
+					@Override
+					public void run() {
+						watchLoop();
+					}
+					
+				}, "TacoAPI-Config-Watcher");
+				_thread.setDaemon(true);
+				_thread.start();
+			}
+		}
+	}
+	
+	/**
+	 * Stop watching the save file of a document
+	 * 
+	 * @param document
+	 *            the document
+	 * @since TacoAPI/Config 1.1
+	 */
+	public void unwatch(YamlDocument document) {
+		synchronized (_lock) {
+			Iterator<List<Watched>> lists = _watched.values().iterator();
+			while (lists.hasNext()) {
+				List<Watched> list = lists.next();
+				for (Iterator<Watched> i = list.iterator(); i.hasNext();) {
+					if (i.next().document == document)
+						i.remove();
+				}
+				if (list.isEmpty())
+					lists.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Stop watching every document and stop the background thread
+	 * 
+	 * @since TacoAPI/Config 1.1
+	 */
+	public void close() {
+		synchronized (_lock) {
+			_closed = true;
+			_watched.clear();
+		}
+		try {
+			_service.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void watchLoop() {
+		while (!_closed) {
+			try {
+				WatchKey key = _changed.isEmpty() ? _service.take() : _service.poll(SETTLE_TIME, TimeUnit.MILLISECONDS);
+				if (key != null) {
+					Path dir = (Path) key.watchable();
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.context() instanceof Path)
+							_changed.put(dir.resolve((Path) event.context()), System.currentTimeMillis() + SETTLE_TIME);
+					}
+					key.reset();
+				}
+				long now = System.currentTimeMillis();
+				for (Iterator<Map.Entry<Path, Long>> i = _changed.entrySet().iterator(); i.hasNext();) {
+					Map.Entry<Path, Long> e = i.next();
+					if (e.getValue() <= now) {
+						i.remove();
+						reload(e.getKey());
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (ClosedWatchServiceException e) {
+				return;
+			}
+		}
+	}
+	
+	//runs on the watcher thread
+	private void reload(Path path) {
+		File file = path.toFile();
+		List<Watched> watched = new ArrayList<Watched>();
+		synchronized (_lock) {
+			List<Watched> list = _watched.get(path);
+			if (list == null)
+				return; //some other file in the same folder
+			for (Watched w : list) {
+				//documents saving themselves, now or in the background, are not reloaded
+				if (!w.document.wroteFile(file))
+					watched.add(w);
+			}
+		}
+		if (watched.isEmpty())
+			return;
+		final YamlDocument fresh;
+		final boolean empty;
+		//closed here, YamlProcessor only closes the stream if the file could be parsed
+		try (InputStream in = new FileInputStream(file)) {
+			Map<String, Object> values = YamlProcessor.getValues(in);
+			empty = values == null;
+			fresh = empty ? new YamlDocument() : new YamlDocument(values);
+		} catch (FileNotFoundException e) {
+			//the documents keep their values, they are written again the next time they are saved
+			System.out.println("Config -> Could not reload " + path + ": the file was removed");
+			return;
+		} catch (IOException | RuntimeException e) {
+			//most likely a typo, the document keeps its values until the file is fixed
+			System.out.println("Config -> Could not reload " + path + ": " + e.getMessage());
+			return;
+		}
+		for (final Watched w : watched) {
+			Runnable apply = new Runnable() {
+				
+				@Override
+				public void run() {
+					w.apply(fresh, empty);
+				}
+				
+			};
+			if (_executor == null)
+				apply.run();
+			else
+				_executor.execute(apply);
+		}
+	}
+	
+	/**
+	 * Make a container look like another one, keeping the comments of the nodes that are kept
+	 * 
+	 * @return the values that changed
+	 */
+	static List<YamlChange> merge(YamlNodeContainer live, YamlNodeContainer fresh) {
+		List<YamlChange> changes = new ArrayList<YamlChange>();
+		merge(live, fresh, changes);
+		return changes;
+	}
+	
+	private static void merge(YamlNodeContainer live, YamlNodeContainer fresh, List<YamlChange> changes) {
+		Set<String> names = new HashSet<String>();
+		for (YamlNode n : fresh) {
+			if (!names.add(n.getName()))
+				continue; //only the first node with a name can be found
+			YamlNode old = live.getNode(n.getName());
+			if (old == null) {
+				YamlDocument.copyNode(n, live);
+				leaves(n, YamlChange.Type.ADDED, changes);
+			} else if (old.isSection() && n.isSection()) {
+				merge(old, n, changes);
+			} else if (old.isSection() || n.isSection()) {
+				leaves(old, YamlChange.Type.REMOVED, changes);
+				live.removeChild(old);
+				YamlDocument.copyNode(n, live).setComment(old.getComment());
+				leaves(n, YamlChange.Type.ADDED, changes);
+			} else if (!equal(old.asObject(), n.asObject())) {
+				changes.add(new YamlChange(YamlChange.Type.CHANGED, old.getPath(), old.asObject(), n.asObject()));
+				old.set(n.asObject());
+			}
+		}
+		for (YamlNode old : new ArrayList<YamlNode>(live.getNodes())) {
+			if (!names.contains(old.getName())) {
+				leaves(old, YamlChange.Type.REMOVED, changes);
+				live.removeChild(old);
+			}
+		}
+	}
+	
+	private static void leaves(YamlNode node, YamlChange.Type type, List<YamlChange> changes) {
+		if (node.isSection()) {
+			for (YamlNode n : node) {
+				leaves(n, type, changes);
+			}
+		} else if (type == YamlChange.Type.ADDED) {
+			changes.add(new YamlChange(type, node.getPath(), null, node.asObject()));
+		} else {
+			changes.add(new YamlChange(type, node.getPath(), node.asObject(), null));
+		}
+	}
+	
+	private static boolean equal(Object a, Object b) {
+		if (a instanceof YamlCollection)
+			a = ((YamlCollection) a).toMapList();
+		if (b instanceof YamlCollection)
+			b = ((YamlCollection) b).toMapList();
+		return a == null ? b == null : a.equals(b);
+	}
+	
+	private static class Watched {
+		
+		final YamlDocument			document;
+		final YamlChangeListener	listener;
+		
+		Watched(YamlDocument document, YamlChangeListener listener) {
+			this.document = document;
+			this.listener = listener;
+		}
+		
+		//runs on the executor of the watcher
+		void apply(YamlDocument fresh, boolean empty) {
+			File file = document.getSaveFile();
+			if (document.isDirty()) {
+				//neither version can be kept without losing the other one
+				System.out.println("Config -> Could not reload " + file + ": the document has unsaved changes");
+				return;
+			}
+			if (empty && !document.getNodes().isEmpty()) {
+				//most likely a file that is still being written
+				System.out.println("Config -> Could not reload " + file + ": the file is empty");
+				return;
+			}
+			List<YamlChange> changes = merge(document, fresh);
+			if (changes.isEmpty())
+				return;
+			//the file already has these changes, it does not need to be written again
+			document.markSaved();
+			if (listener != null)
+				listener.onChange(document, changes);
+		}
+		
+	}
+	
+}
@@ -16,10 +16,12 @@ public class YamlNode extends YamlNodeContainer {
 	private Object				_value	= null;
 	private String				_name, _comment;
 	private YamlNodeContainer	_parent;
+	private int					_modCount;
 	
 	protected YamlNode(YamlNodeContainer parent, String name) {
 		_parent = parent;
 		_name = name;
+		setOptions(parent.options());
 	}
 	
 	/**
@@ -77,6 +79,28 @@ public class YamlNode extends YamlNodeContainer {
 		return getParent().getPath() + (getParent() instanceof YamlDocument ? "" : ".") + getName();
 	}
 	
+	@Override
+	void modified() {
+		_modCount++;
+		_parent.modified();
+	}
+	
+	/**
+	 * Get how many times this node was changed. This increases every time this node is set, or a node in it is added,
+	 * removed or set, so values decoded from this node can be kept until it changes.
+	 * 
+	 * @return the modification count of this node
+	 * @since TacoAPI/Config 1.1
+	 */
+	public int getModCount() {
+		return _modCount;
+	}
+	
+	@Override
+	void nodeCreated() {
+		_parent.nodeCreated();
+	}
+	
 	@Override
 	public YamlNode getNode(String path, boolean create) {
 		if (path == null || path.isEmpty())
@@ -94,6 +118,7 @@ public class YamlNode extends YamlNodeContainer {
 	 */
 	public void setComment(String comment) {
 		_comment = comment;
+		modified();
 	}
 	
 	/**
@@ -113,7 +138,7 @@ public class YamlNode extends YamlNodeContainer {
 	 * @since TacoAPI/Config 1.0
 	 */
 	public boolean isSet() {
-		return _value != null || !getNodes().isEmpty();
+		return _value != null || hasNodes();
 	}
 	
 	/**
@@ -123,7 +148,7 @@ public class YamlNode extends YamlNodeContainer {
 	 * @since TacoAPI/Config 1.0
 	 */
 	public boolean isSection() {
-		return !getNodes().isEmpty();
+		return hasNodes();
 	}
 	
 	/**
@@ -170,9 +195,15 @@ public class YamlNode extends YamlNodeContainer {
 		if (value instanceof Map) {
 			addNodes((Map<String, Object>) value);
 			return;
-		} else if (value instanceof YamlCollection) {
-			((YamlCollection) value).setParent(this);
 		}
+		load(value);
+		modified();
+	}
+	
+	//set the value of a node that was just created from values that were already loaded
+	void load(Object value) {
+		if (value instanceof YamlCollection)
+			((YamlCollection) value).setParent(this);
 		_value = value;
 	}
 	
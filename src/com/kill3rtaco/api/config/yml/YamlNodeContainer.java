@@ -1,6 +1,7 @@
 package com.kill3rtaco.api.config.yml;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -8,8 +9,12 @@ import java.util.Map;
 
 public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 	
-	private List<YamlNode>		_children	= new ArrayList<YamlNode>();
-	private YamlDocumentOptions	_options	= new YamlDocumentOptions();
+	private List<YamlNode>			_children		= new ArrayList<YamlNode>();
+	private List<YamlNode>			_childrenView	= Collections.unmodifiableList(_children);
+	private Map<String, YamlNode>	_index			= new HashMap<String, YamlNode>();
+	private YamlDocumentOptions		_options		= new YamlDocumentOptions();
+	//the values of a section that has not been turned into nodes yet
+	private Map<String, Object>		_lazy;
 	
 	/**
 	 * Get the path of this container
@@ -20,17 +25,58 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 	public abstract String getPath();
 	
 	/**
-	 * Get all child nodes of this container
+	 * Get all child nodes of this container. Since TacoAPI/Config 1.1, the returned list cannot be modified, as nodes
+	 * are also looked up by name; use {@code set(...)} and {@code removeNode(String)} instead.
 	 * 
 	 * @return the child nodes
 	 * @since TacoAPI/Config 1.0
 	 */
 	public List<YamlNode> getNodes() {
-		return _children;
+		children();
+		return _childrenView;
 	}
 	
+	/**
+	 * Iterate over the child nodes of this container. Since TacoAPI/Config 1.1, the iterator cannot remove nodes; use
+	 * {@code removeNode(String)} instead.
+	 */
 	public Iterator<YamlNode> iterator() {
-		return _children.iterator();
+		children();
+		return _childrenView.iterator();
+	}
+	
+	private List<YamlNode> children() {
+		if (_lazy != null) {
+			Map<String, Object> values = _lazy;
+			_lazy = null;
+			addNodes(values, false);
+		}
+		return _children;
+	}
+	
+	//keep the values of a section as they are until its nodes are needed
+	void defer(Map<String, Object> values) {
+		_lazy = values;
+	}
+	
+	//the values of this section if it was not turned into nodes yet, or null
+	Map<String, Object> getLazyValues() {
+		return _lazy;
+	}
+	
+	boolean hasNodes() {
+		return _lazy != null || !_children.isEmpty();
+	}
+	
+	//the amount of sections below this container that were not turned into nodes yet
+	int countDeferred() {
+		if (_lazy != null)
+			return 1;
+		int count = 0;
+		for (YamlNode n : _children) {
+			count += n.countDeferred();
+		}
+		return count;
 	}
 	
 	void setOptions(YamlDocumentOptions options) {
@@ -44,14 +90,48 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 		return _options;
 	}
 	
+	//called whenever something that is saved changes
+	void modified() {
+	}
+	
+	//called whenever a node is created
+	void nodeCreated() {
+	}
+	
 	protected YamlNode addNode(String name) {
+		children();
+		YamlNode node = attach(name);
+		modified();
+		return node;
+	}
+	
+	private YamlNode attach(String name) {
 		if (name == null || name.isEmpty())
 			throw new IllegalArgumentException("name cannot be null or empty");
 		YamlNode node = new YamlNode(this, name);
 		_children.add(node);
+		//lookups have always found the first node with a name
+		if (!_index.containsKey(name))
+			_index.put(name, node);
+		nodeCreated();
 		return node;
 	}
 	
+	void removeChild(YamlNode node) {
+		if (!children().remove(node))
+			return;
+		modified();
+		if (_index.get(node.getName()) == node) {
+			_index.remove(node.getName());
+			for (YamlNode n : _children) {
+				if (n.getName().equals(node.getName())) {
+					_index.put(n.getName(), n);
+					break;
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Add all nodes within the given container to this container
 	 * 
@@ -70,14 +150,23 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 	 *            the map to use
 	 * @since TacoAPI/Config 1.0
 	 */
-	@SuppressWarnings("unchecked")
 	public void addNodes(Map<String, Object> map) {
+		addNodes(map, true);
+	}
+	
+	//nodes made from the values of a deferred section already existed, so they are not changes
+	@SuppressWarnings("unchecked")
+	void addNodes(Map<String, Object> map, boolean changed) {
+		boolean lazy = _options.lazySections;
 		for (String s : map.keySet()) {
-			YamlNode node = addNode(s);
+			YamlNode node = changed ? addNode(s) : attach(s);
 			Object obj = map.get(s);
 			if (obj instanceof Map) {
 				Map<String, Object> values = (Map<String, Object>) obj;
-				node.addNodes(values);
+				if (lazy && !values.isEmpty())
+					node.defer(values);
+				else
+					node.addNodes(values, changed);
 			} else {
 				//if any object is map, make collection
 				if (obj instanceof List) {
@@ -88,8 +177,14 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 							break;
 						}
 					}
+					//deferred values can be shared with copies of the document
+					if (!changed && obj == list)
+						obj = new ArrayList<Object>(list);
 				}
-				node.set(obj);
+				if (changed)
+					node.set(obj);
+				else
+					node.load(obj);
 			}
 //			System.out.println(node);
 		}
@@ -114,45 +209,60 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 	 *            the path to the node
 	 * @param create
 	 *            true if the node should be created if it doesn't exist
-	 * @return the node
+	 * @return the node. When nodes are created, they are only created up to the first empty name in the path, and the
+	 *         last node created is returned
 	 * @since TacoAPI/Config 1.0
 	 * @throws IllegalArgumentException
 	 *             if the path is empty, null, or ends in a '.' Note that if this container is a YamlNode, passing null
 	 *             or and empty String as path will result in this node being returned
 	 */
 	public YamlNode getNode(String path, boolean create) {
-		if (path == null || path.isEmpty())
-			throw new IllegalArgumentException("path cannot be null or empty"); //overridden for YamlNode
-		if (path.endsWith("."))
-			throw new IllegalArgumentException("path cannot end in a '.'");
-		
-		String name;
-		if (path.contains(".")) {
-			name = path.substring(0, path.indexOf("."));
-			path = path.substring(name.length() + 1);
-		} else {
-			name = path + ""; //clone path
-			path = "";
-		}
-		
-		for (YamlNode n : _children) {
-			if (n.getName().equals(name)) {
-				if (path.isEmpty())
-					return n;
-				return n.getNode(path, create);
-			}
-		}
-		
-		if (create) {
-			YamlNode node = addNode(name);
-			for (String s : path.split("\\.")) {
-				if (s.isEmpty())
+		return getNode(YamlPath.compile(path), create); //overridden for YamlNode
+	}
+	
+	/**
+	 * Get a node from this container
+	 * 
+	 * @param path
+	 *            the compiled path to the node
+	 * @return the node, or null if the node doesn't exist
+	 * @since TacoAPI/Config 1.1
+	 */
+	public YamlNode getNode(YamlPath path) {
+		return getNode(path, false);
+	}
+	
+	/**
+	 * Get a node from this container, and optionally create it if it doesn't exist
+	 * 
+	 * @param path
+	 *            the compiled path to the node
+	 * @param create
+	 *            true if the node should be created if it doesn't exist
+	 * @return the node. When nodes are created, they are only created up to the first empty name in the path, and the
+	 *         last node created is returned
+	 * @since TacoAPI/Config 1.1
+	 */
+	public YamlNode getNode(YamlPath path, boolean create) {
+		YamlNodeContainer container = this;
+		YamlNode node = null;
+		boolean created = false;
+		for (int i = 0; i < path.length(); i++) {
+			String name = path.getName(i);
+			container.children();
+			YamlNode child = container._index.get(name);
+			if (child == null) {
+				if (!create)
+					return null;
+				//as it always has, creating a path stops at an empty name: "a..b" creates and returns "a"
+				if (created && name.isEmpty())
 					return node;
-				node = node.addNode(s);
+				child = container.addNode(name);
+				created = true;
 			}
-			return node;
+			container = node = child;
 		}
-		return null;
+		return node;
 	}
 	
 	protected Boolean makeBool(Object o) {
@@ -321,10 +431,11 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 	 * @since
 	 */
 	public void removeNode(String path) {
-		if (!isSet(path))
+		YamlNode node = getNode(path);
+		if (node == null)
 			return;
 		
-		_children.remove(getNode(path));
+		node.getParent().removeChild(node);
 	}
 	
 	public void set(String path, Object value) {
@@ -332,10 +443,11 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 	}
 	
 	public void setComment(String path, String comment) {
-		if (!isSet(path))
+		YamlNode node = getSetNode(path);
+		if (node == null)
 			return;
 		
-		getNode(path).setComment(comment);
+		node.setComment(comment);
 	}
 	
 	public void setDefault(String path, Object value) {
@@ -344,189 +456,214 @@ public abstract class YamlNodeContainer implements Iterable<YamlNode> {
 	}
 	
 	public boolean isSet(String path) {
-		if (getNode(path) == null)
-			return false;
-		return getNode(path).isSet();
+		return getSetNode(path) != null;
+	}
+	
+	/**
+	 * Returns true if the node at the given path exists and has a value
+	 * 
+	 * @param path
+	 *            the compiled path to the node
+	 * @return true if a value has been set for the node
+	 * @since TacoAPI/Config 1.1
+	 */
+	public boolean isSet(YamlPath path) {
+		YamlNode node = getNode(path);
+		return node != null && node.isSet();
+	}
+	
+	//resolve a path once, for the getters that need both isSet and the value
+	private YamlNode getSetNode(String path) {
+		YamlNode node = getNode(path);
+		return node != null && node.isSet() ? node : null;
 	}
 	
 	public boolean isNumber(String path) {
-		if (!isSet(path))
-			return false;
-		return getNode(path).isNumber();
+		YamlNode node = getSetNode(path);
+		return node == null ? false : node.isNumber();
 	}
 	
 	public boolean isSection(String path) {
-		if (!isSet(path))
-			return false;
-		return getNode(path).isSection();
+		YamlNode node = getSetNode(path);
+		return node == null ? false : node.isSection();
 	}
 	
 	public boolean isList(String path) {
-		if (!isSet(path))
-			return false;
-		return getNode(path).isList();
+		YamlNode node = getSetNode(path);
+		return node == null ? false : node.isList();
 	}
 	
 	public boolean isCollection(String path) {
-		if (!isSet(path))
-			return false;
-		return getNode(path).isCollection();
+		YamlNode node = getSetNode(path);
+		return node == null ? false : node.isCollection();
 	}
 	
 	public Object get(String path) {
-		if (!isSet(path))
-			return null;
-		return getNode(path).asObject();
+		YamlNode node = getSetNode(path);
+		return node == null ? null : node.asObject();
+	}
+	
+	/**
+	 * Get the value of the node at the given path
+	 * 
+	 * @param path
+	 *            the compiled path to the node
+	 * @return the value, or null if the node doesn't exist or has no value
+	 * @since TacoAPI/Config 1.1
+	 */
+	public Object get(YamlPath path) {
+		YamlNode node = getNode(path);
+		return node == null ? null : node.asObject();
 	}
 	
 	public boolean getBoolean(String path) {
-		if (!isSet(path))
-			return false;
-		return getNode(path).asBoolean();
+		YamlNode node = getSetNode(path);
+		return node == null ? false : node.asBoolean();
 	}
 	
 	public boolean getBoolean(String path, boolean def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asBoolean();
+		return node.asBoolean();
 	}
 	
 	public List<Boolean> getBooleanList(String path) {
-		if (!isSet(path))
-			return new ArrayList<Boolean>();
-		return getNode(path).asBooleanList();
+		YamlNode node = getSetNode(path);
+		return node == null ? new ArrayList<Boolean>() : node.asBooleanList();
 	}
 	
 	public List<Boolean> getBooleanList(String path, List<Boolean> def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asBooleanList();
+		return node.asBooleanList();
 	}
 	
 	public YamlCollection getCollection(String path) {
-		if (!isSet(path))
-			return null;
-		return getNode(path).asCollection();
+		YamlNode node = getSetNode(path);
+		return node == null ? null : node.asCollection();
 	}
 	
 	public YamlCollection getCollection(String path, YamlCollection def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asCollection();
+		return node.asCollection();
 	}
 	
 	public double getDouble(String path) {
-		if (!isSet(path))
-			return 0;
-		return getNode(path).asDouble();
+		YamlNode node = getSetNode(path);
+		return node == null ? 0 : node.asDouble();
 	}
 	
 	public double getDouble(String path, double def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asDouble();
+		return node.asDouble();
 	}
 	
 	public List<Double> getDoubleList(String path) {
-		if (!isSet(path))
-			return new ArrayList<Double>();
-		return getNode(path).asDoubleList();
+		YamlNode node = getSetNode(path);
+		return node == null ? new ArrayList<Double>() : node.asDoubleList();
 	}
 	
 	public List<Double> getDoubleList(String path, List<Double> def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asDoubleList();
+		return node.asDoubleList();
 	}
 	
 	public int getInt(String path) {
-		if (!isSet(path))
-			return 0;
-		return getNode(path).asInt();
+		YamlNode node = getSetNode(path);
+		return node == null ? 0 : node.asInt();
 	}
 	
 	public int getInt(String path, int def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asInt();
+		return node.asInt();
 	}
 	
 	public List<Integer> getIntList(String path) {
-		if (!isSet(path))
-			return new ArrayList<Integer>();
-		return getNode(path).asIntList();
+		YamlNode node = getSetNode(path);
+		return node == null ? new ArrayList<Integer>() : node.asIntList();
 	}
 	
 	public List<Integer> getIntList(String path, List<Integer> def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asIntList();
+		return node.asIntList();
 	}
 	
 	public List<Object> getList(String path) {
-		if (!isSet(path))
-			return new ArrayList<Object>();
-		return getNode(path).asList();
+		YamlNode node = getSetNode(path);
+		return node == null ? new ArrayList<Object>() : node.asList();
 	}
 	
 	public List<Object> getList(String path, List<Object> def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asList();
+		return node.asList();
 	}
 	
 	public String getString(String path) {
-		if (!isSet(path))
-			return null;
-		return getNode(path).asString();
+		YamlNode node = getSetNode(path);
+		return node == null ? null : node.asString();
 	}
 	
 	public String getString(String path, String def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asString();
+		return node.asString();
 	}
 	
 	public List<String> getStringList(String path) {
-		if (!isSet(path))
-			return new ArrayList<String>();
-		return getNode(path).asStringList();
+		YamlNode node = getSetNode(path);
+		return node == null ? new ArrayList<String>() : node.asStringList();
 	}
 	
 	public List<String> getStringList(String path, List<String> def) {
-		if (!isSet(path)) {
+		YamlNode node = getSetNode(path);
+		if (node == null) {
 			if (_options.saveDefaults)
 				set(path, def);
 			return def;
 		}
-		return getNode(path).asStringList();
+		return node.asStringList();
 	}
 	
 	/**
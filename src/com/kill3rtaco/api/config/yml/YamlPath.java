@@ -0,0 +1,107 @@
+package com.kill3rtaco.api.config.yml;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A path to a node that has already been split into the names of the nodes along the way. Paths used often can be
+ * compiled once and reused, so that looking up their node never has to parse the path again. Paths passed as Strings
+ * to a {@link YamlNodeContainer} are compiled through a shared cache.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Config 1.1
+ */
+public final class YamlPath {
+	
+	private static final int					MAX_CACHED	= 4096;
+	private static final Map<String, YamlPath>	_cache		= new ConcurrentHashMap<String, YamlPath>();
+	
+	private final String						_path;
+	private final String[]						_names;
+	
+	private YamlPath(String path, String[] names) {
+		_path = path;
+		_names = names;
+	}
+	
+	/**
+	 * Compile a path, such as {@code "ranks.admin.prefix"}
+	 * 
+	 * @param path
+	 *            the path to compile
+	 * @return the compiled path
+	 * @since TacoAPI/Config 1.1
+	 * @throws IllegalArgumentException
+	 *             if the path is empty, null, or ends in a '.'
+	 */
+	public static YamlPath compile(String path) {
+		if (path == null || path.isEmpty())
+			throw new IllegalArgumentException("path cannot be null or empty");
+		YamlPath compiled = _cache.get(path);
+		if (compiled != null)
+			return compiled;
+		if (path.endsWith("."))
+			throw new IllegalArgumentException("path cannot end in a '.'");
+		
+		int count = 1;
+		for (int i = 0; i < path.length(); i++) {
+			if (path.charAt(i) == '.')
+				count++;
+		}
+		String[] names = new String[count];
+		int start = 0;
+		for (int i = 0; i < count; i++) {
+			int end = path.indexOf('.', start);
+			if (end == -1)
+				end = path.length();
+			names[i] = path.substring(start, end);
+			start = end + 1;
+		}
+		
+		compiled = new YamlPath(path, names);
+		//paths built from player names and the like would otherwise fill the cache forever
+		if (_cache.size() >= MAX_CACHED)
+			_cache.clear();
+		_cache.put(path, compiled);
+		return compiled;
+	}
+	
+	/**
+	 * Get the amount of names in this path
+	 * 
+	 * @return the length of this path
+	 * @since TacoAPI/Config 1.1
+	 */
+	public int length() {
+		return _names.length;
+	}
+	
+	/**
+	 * Get a name in this path
+	 * 
+	 * @param index
+	 *            the index of the name, where 0 is the name of the top-most node
+	 * @return the name
+	 * @since TacoAPI/Config 1.1
+	 */
+	public String getName(int index) {
+		return _names[index];
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof YamlPath && ((YamlPath) obj)._path.equals(_path);
+	}
+	
+	@Override
+	public int hashCode() {
+		return _path.hashCode();
+	}
+	
+	@Override
+	public String toString() {
+		return _path;
+	}
+	
+}
@@ -4,13 +4,10 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-import java.io.Writer;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.yaml.snakeyaml.DumperOptions;
@@ -67,69 +64,13 @@ class YamlProcessor {
 		return (Map<String, Object>) YAML.load(reader);
 	}
 	
-	public static void save(YamlDocument document) {
-		File file = document.getSaveFile();
-		String header = document.getHeader();
-		List<YamlNode> nodes = document.getNodes();
+	//returns the amount of bytes written, or -1 if the file could not be written
+	public static long save(YamlDocument document) {
 		try {
-			if (!file.exists()) {
-				file.getParentFile().mkdirs();
-			} else {
-				file.delete();
-				file.createNewFile();
-			}
-			FileWriter writer = new FileWriter(file);
-			if (header != null && !header.isEmpty()) {
-				outComment(header, writer);
-				writer.append(NEWLINE);
-			}
-			dumpNodeList(writer, nodes, 0);
-			writer.close();
+			return YamlEmitter.save(YAML, NEWLINE, document);
 		} catch (IOException e) {
 			e.printStackTrace();
-		}
-		
-	}
-	
-	private static void dumpNodeList(Writer writer, List<YamlNode> children, int indent) throws IOException {
-		String tab = "  "; //2 spaces
-		String indentPrefix = "";
-		for (int i = 0; i < indent; i++) {
-			indentPrefix += tab;
-		}
-		for (YamlNode n : children) {
-			String name = n.getName();
-			if (name.matches("[0-9]+"))
-				name = "'" + name + "'";
-			else if (name.isEmpty())
-				name = "''";
-			
-			if (n.getComment() != null)
-				writer.append(NEWLINE + indentPrefix + "# " + n.getComment() + NEWLINE);
-			
-			if (!n.isSection()) {
-				Object toDump = n.asObject();
-				if (toDump instanceof YamlCollection) {
-					toDump = ((YamlCollection) toDump).toMapList();
-				}
-				String dump = YAML.dump(toDump);
-				if (toDump instanceof List) {
-					dump = NEWLINE + indentPrefix + dump.replace(NEWLINE, NEWLINE + indentPrefix);
-					//remove trailing spaces but not newline character
-					dump = dump.substring(0, dump.length() - indentPrefix.length());
-				}
-				writer.append(indentPrefix + n.getName() + ": " + dump);
-			} else {
-				writer.append(indentPrefix + n.getName() + ":" + NEWLINE);
-				dumpNodeList(writer, n.getNodes(), ++indent);
-				indent--;
-			}
-		}
-	}
-	
-	private static void outComment(String comment, Writer writer) throws IOException {
-		for (String s : comment.split("\n")) {
-			writer.append("# " + s + "\n");
+			return -1;
 		}
 	}
 }
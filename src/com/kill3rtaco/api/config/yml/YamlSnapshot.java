@@ -0,0 +1,196 @@
+package com.kill3rtaco.api.config.yml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of a YamlDocument, taken at one point in time. Every value is converted once, when the snapshot
+ * is taken, so reading an int, double or boolean is only a map lookup. Snapshots never change, so they can be read
+ * from any thread without locking. Unlike the getters of a YamlDocument, the getters of a snapshot never save
+ * defaults.
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Config 1.1
+ * @see YamlDocument#getSnapshot()
+ */
+public final class YamlSnapshot {
+	
+	private final Map<String, Value>	_values	= new HashMap<String, Value>();
+	private final int					_modCount;
+	
+	//must be called on the thread that changes the document
+	YamlSnapshot(YamlDocument document) {
+		_modCount = document.getModCount();
+		add(document, "", document);
+	}
+	
+	private void add(YamlNodeContainer container, String prefix, YamlDocument document) {
+		for (YamlNode n : container) {
+			String path = prefix + n.getName();
+			//getNode only ever finds the first node with a name
+			if (_values.containsKey(path))
+				continue;
+			_values.put(path, new Value(n, document));
+			if (n.isSection())
+				add(n, path + ".", document);
+		}
+	}
+	
+	/**
+	 * Get the modification count of the document when this snapshot was taken
+	 * 
+	 * @return the modification count
+	 * @since TacoAPI/Config 1.1
+	 * @see YamlDocument#getModCount()
+	 */
+	public int getModCount() {
+		return _modCount;
+	}
+	
+	public boolean isSet(String path) {
+		Value value = _values.get(path);
+		return value != null && value.set;
+	}
+	
+	public boolean isNumber(String path) {
+		Value value = _values.get(path);
+		return value != null && value.number;
+	}
+	
+	public boolean isSection(String path) {
+		Value value = _values.get(path);
+		return value != null && value.section;
+	}
+	
+	public boolean isList(String path) {
+		Value value = _values.get(path);
+		return value != null && value.raw instanceof List && !value.collection;
+	}
+	
+	public boolean isCollection(String path) {
+		Value value = _values.get(path);
+		return value != null && value.collection;
+	}
+	
+	/**
+	 * Get the value at the given path. Lists and collections are returned as lists that cannot be modified;
+	 * collections are returned as a list of maps.
+	 * 
+	 * @param path
+	 *            the path to the value
+	 * @return the value, or null if it is not set
+	 * @since TacoAPI/Config 1.1
+	 */
+	public Object get(String path) {
+		Value value = _values.get(path);
+		return value == null ? null : value.raw;
+	}
+	
+	public boolean getBoolean(String path) {
+		return getBoolean(path, false);
+	}
+	
+	public boolean getBoolean(String path, boolean def) {
+		Value value = _values.get(path);
+		return value == null || !value.set ? def : value.bool;
+	}
+	
+	public List<Boolean> getBooleanList(String path) {
+		Value value = _values.get(path);
+		return value == null ? Collections.<Boolean> emptyList() : value.boolList;
+	}
+	
+	public double getDouble(String path) {
+		return getDouble(path, 0);
+	}
+	
+	public double getDouble(String path, double def) {
+		Value value = _values.get(path);
+		return value == null || !value.set ? def : value.dbl;
+	}
+	
+	public List<Double> getDoubleList(String path) {
+		Value value = _values.get(path);
+		return value == null ? Collections.<Double> emptyList() : value.dblList;
+	}
+	
+	public int getInt(String path) {
+		return getInt(path, 0);
+	}
+	
+	public int getInt(String path, int def) {
+		Value value = _values.get(path);
+		return value == null || !value.set ? def : value.integer;
+	}
+	
+	public List<Integer> getIntList(String path) {
+		Value value = _values.get(path);
+		return value == null ? Collections.<Integer> emptyList() : value.intList;
+	}
+	
+	public String getString(String path) {
+		return getString(path, null);
+	}
+	
+	public String getString(String path, String def) {
+		Value value = _values.get(path);
+		return value == null || !value.set ? def : value.str;
+	}
+	
+	public List<String> getStringList(String path) {
+		Value value = _values.get(path);
+		return value == null ? Collections.<String> emptyList() : value.strList;
+	}
+	
+	private static final class Value {
+		
+		final Object		raw;
+		final boolean		set, section, number, collection, bool;
+		final int			integer;
+		final double		dbl;
+		final String		str;
+		final List<Boolean>	boolList;
+		final List<Double>	dblList;
+		final List<Integer>	intList;
+		final List<String>	strList;
+		
+		Value(YamlNode node, YamlDocument document) {
+			Object value = node.asObject();
+			set = node.isSet();
+			section = node.isSection();
+			collection = value instanceof YamlCollection;
+			if (collection)
+				value = Collections.unmodifiableList(((YamlCollection) value).toMapList());
+			else if (value instanceof List)
+				value = Collections.unmodifiableList(new ArrayList<Object>((List<?>) value));
+			raw = value;
+			
+			Integer i = document.makeInt(value);
+			Double d = document.makeDbl(value);
+			Boolean b = document.makeBool(value);
+			number = i != null;
+			integer = i == null ? 0 : i;
+			dbl = d == null ? 0 : d;
+			bool = b == null ? false : b;
+			str = document.makeStr(value);
+			
+			if (value == null || collection) {
+				boolList = Collections.emptyList();
+				dblList = Collections.emptyList();
+				intList = Collections.emptyList();
+				strList = Collections.emptyList();
+			} else {
+				boolList = Collections.unmodifiableList(document.makeBoolList(value));
+				dblList = Collections.unmodifiableList(document.makeDblList(value));
+				intList = Collections.unmodifiableList(document.makeIntList(value));
+				strList = Collections.unmodifiableList(document.makeStrList(value));
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,165 @@
+package com.kill3rtaco.api.database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues rows for a single statement and writes them to the database in
+ * batches, off the calling thread. Rows are written once enough are queued,
+ * on a fixed interval, and whenever {@link #flush()} is called (which
+ * {@link Database#flush()} and {@link Database#close()} do for every writer).<br/>
+ * <br/>
+ * Rows added with a key are coalesced: if a row with the same key is still
+ * queued, it is replaced instead of being written twice. This is useful for
+ * saving player data, where only the latest state matters:
+ * 
+ * <pre>
+ * BatchWriter writer = db.createBatchWriter(&quot;REPLACE INTO stats (player, kills) VALUES (?, ?)&quot;);
+ * writer.addKeyed(player.getName(), player.getName(), kills);
+ * </pre>
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ * @see Database#createBatchWriter(String)
+ *
+ */
+public class BatchWriter {
+	
+	private static final int		MAX_ATTEMPTS	= 3;
+	
+	private Database				_db;
+	private String					_sql;
+	private int						_batchSize, _failures;
+	private Map<Object, Object[]>	_pending		= new LinkedHashMap<Object, Object[]>();
+	private Object					_flushLock		= new Object();
+	private boolean					_flushQueued;
+	
+	BatchWriter(Database db, String sql, int batchSize, long flushInterval) {
+		_db = db;
+		_sql = sql;
+		_batchSize = Math.max(1, batchSize);
+		if (flushInterval > 0) {
+			db.getWriterService().scheduleWithFixedDelay(new Runnable() {
+				
+				@Override
+				public void run() {
+					flush();
+				}
+				
+			}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Get the statement this writer writes rows with
+	 * 
+	 * @return the SQL statement
+	 * @since TacoAPI/Database 3.1
+	 */
+	public String getSql() {
+		return _sql;
+	}
+	
+	/**
+	 * Queue a row. Rows added this way are never coalesced.
+	 * 
+	 * @param params
+	 *            the parameters of the row
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void add(Object... params) {
+		queue(new Object(), params);
+	}
+	
+	/**
+	 * Queue a row, replacing any queued row with the same key
+	 * 
+	 * @param key
+	 *            what identifies the row, such as a player name or the
+	 *            primary key of the row
+	 * @param params
+	 *            the parameters of the row
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void addKeyed(Object key, Object... params) {
+		queue(key, params);
+	}
+	
+	private void queue(Object key, Object[] params) {
+		boolean flush = false;
+		synchronized (this) {
+			//keep the position of the original row, the newest values win
+			_pending.put(key, params);
+			if (_pending.size() >= _batchSize && !_flushQueued) {
+				_flushQueued = true;
+				flush = true;
+			}
+		}
+		if (flush) {
+			ScheduledExecutorService service = _db.getWriterService();
+			if (!service.isShutdown()) {
+				service.execute(new Runnable() {
+					
+					@Override
+					public void run() {
+						flush();
+					}
+					
+				});
+			}
+		}
+	}
+	
+	/**
+	 * Get the amount of rows waiting to be written
+	 * 
+	 * @return the amount of queued rows
+	 * @since TacoAPI/Database 3.1
+	 */
+	public synchronized int getQueuedRows() {
+		return _pending.size();
+	}
+	
+	/**
+	 * Write every queued row now, on the calling thread. If the batch fails,
+	 * the rows are queued again (unless a newer row with the same key was
+	 * queued in the meantime) and retried on the next flush. A batch that
+	 * fails three times in a row is dropped.
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void flush() {
+		//only one flush at a time so that batches are written in order
+		synchronized (_flushLock) {
+			Map<Object, Object[]> batch;
+			synchronized (this) {
+				_flushQueued = false;
+				if (_pending.isEmpty())
+					return;
+				batch = _pending;
+				_pending = new LinkedHashMap<Object, Object[]>();
+			}
+			List<Object[]> rows = new ArrayList<Object[]>(batch.values());
+			if (_db.writeBatch(_sql, rows).length == rows.size()) {
+				_failures = 0;
+				return;
+			}
+			if (++_failures >= MAX_ATTEMPTS) {
+				System.out.printf("Database -> Dropping %d rows for '%s' after %d failed attempts%n", rows.size(), _sql, _failures);
+				_failures = 0;
+				return;
+			}
+			synchronized (this) {
+				for (Map.Entry<Object, Object[]> e : _pending.entrySet()) {
+					batch.put(e.getKey(), e.getValue());
+				}
+				_pending = batch;
+			}
+		}
+	}
+	
+}
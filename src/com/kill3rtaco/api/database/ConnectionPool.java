@@ -0,0 +1,327 @@
+package com.kill3rtaco.api.database;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of MySQL connections used by a {@link Database}. Idle
+ * connections are validated and evicted in the background, and callers wait
+ * at most {@link DatabaseOptions#borrowTimeout} milliseconds for a connection.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ *
+ */
+public class ConnectionPool {
+	
+	private String								_url;
+	private DatabaseOptions						_options;
+	private LinkedBlockingDeque<PooledConnection>	_idle		= new LinkedBlockingDeque<PooledConnection>();
+	private Semaphore							_permits;
+	private AtomicInteger						_open		= new AtomicInteger(), _waiting = new AtomicInteger();
+	private AtomicLong							_borrows	= new AtomicLong(), _timeouts = new AtomicLong(),
+			_waitTime = new AtomicLong(), _borrowTime = new AtomicLong(),
+			_stmtHits = new AtomicLong(), _stmtMisses = new AtomicLong();
+	private ScheduledExecutorService			_maintenance;
+	private volatile boolean					_closed;
+	
+	ConnectionPool(String url, DatabaseOptions options) {
+		_url = url;
+		_options = options;
+		_permits = new Semaphore(Math.max(1, options.maxConnections), true);
+		_maintenance = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TacoAPI-Database-Pool");
+				thread.setDaemon(true);
+				return thread;
+			}
+			
+		});
+		long interval = Math.max(1000, options.validationInterval);
+		_maintenance.scheduleWithFixedDelay(new Runnable() {
+			
+			@Override
+			public void run() {
+				maintain();
+			}
+			
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Open connections until {@link DatabaseOptions#minIdleConnections} are
+	 * idle
+	 * 
+	 * @throws SQLException
+	 *             if a connection could not be opened
+	 */
+	void fill() throws SQLException {
+		while (!_closed && _idle.size() < _options.minIdleConnections && _open.get() < _options.maxConnections) {
+			_idle.offerLast(open());
+		}
+	}
+	
+	private PooledConnection open() throws SQLException {
+		PooledConnection conn = new PooledConnection(DriverManager.getConnection(_url), this, _options.statementCacheSize);
+		_open.incrementAndGet();
+		return conn;
+	}
+	
+	void statementCacheHit() {
+		_stmtHits.incrementAndGet();
+	}
+	
+	void statementCacheMiss() {
+		_stmtMisses.incrementAndGet();
+	}
+	
+	private void discard(PooledConnection conn) {
+		_open.decrementAndGet();
+		conn.close();
+	}
+	
+	/**
+	 * Take a connection from the pool, opening a new one if none are idle. The
+	 * connection must be given back with {@link #release(PooledConnection)}
+	 * 
+	 * @return a connection that only the calling thread may use
+	 * @throws SQLException
+	 *             if the pool is closed, no connection became available in
+	 *             time, or a new connection could not be opened
+	 */
+	PooledConnection borrow() throws SQLException {
+		if (_closed)
+			throw new SQLException("Connection pool is closed");
+		long start = System.nanoTime();
+		_waiting.incrementAndGet();
+		try {
+			if (!_permits.tryAcquire(_options.borrowTimeout, TimeUnit.MILLISECONDS)) {
+				_timeouts.incrementAndGet();
+				throw new SQLException("Timed out after " + _options.borrowTimeout + "ms waiting for a connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection");
+		} finally {
+			_waiting.decrementAndGet();
+		}
+		_waitTime.addAndGet(System.nanoTime() - start);
+		
+		try {
+			PooledConnection conn;
+			//most recently used first, those are the least likely to have gone stale
+			while ((conn = _idle.pollFirst()) != null) {
+				if (conn.idleTime() < _options.validationInterval || conn.validate(_options.validationTimeout))
+					break;
+				discard(conn);
+			}
+			if (conn == null)
+				conn = open();
+			conn.borrowed();
+			_borrows.incrementAndGet();
+			return conn;
+		} catch (SQLException e) {
+			_permits.release();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Give a connection back to the pool. Broken connections are closed
+	 * instead of being reused. Passing null does nothing
+	 * 
+	 * @param conn
+	 *            the connection to give back
+	 */
+	void release(PooledConnection conn) {
+		if (conn == null)
+			return;
+		_borrowTime.addAndGet(conn.returned());
+		if (_closed || conn.isBroken())
+			discard(conn);
+		else
+			_idle.offerFirst(conn);
+		_permits.release();
+	}
+	
+	//runs on the maintenance thread
+	private void maintain() {
+		int count = _idle.size();
+		for (int i = 0; i < count; i++) {
+			//least recently used are at the end, borrowers take from the front
+			PooledConnection conn = _idle.pollLast();
+			if (conn == null)
+				break;
+			boolean evict = conn.idleTime() > _options.idleTimeout && _idle.size() >= _options.minIdleConnections;
+			if (evict || !conn.validate(_options.validationTimeout))
+				discard(conn);
+			else
+				_idle.offerLast(conn);
+		}
+		try {
+			fill();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Close every idle connection and stop background maintenance. Connections
+	 * that are currently borrowed are closed when they are released.
+	 */
+	void close() {
+		_closed = true;
+		_maintenance.shutdownNow();
+		PooledConnection conn;
+		while ((conn = _idle.pollFirst()) != null) {
+			discard(conn);
+		}
+	}
+	
+	/**
+	 * Get whether this pool has been closed
+	 * 
+	 * @return true if this pool was closed
+	 * @since TacoAPI/Database 3.1
+	 */
+	public boolean isClosed() {
+		return _closed;
+	}
+	
+	/**
+	 * Get the maximum amount of connections this pool will open
+	 * 
+	 * @return the maximum amount of connections
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getMaxConnections() {
+		return _options.maxConnections;
+	}
+	
+	/**
+	 * Get the amount of connections that are currently open, whether they are
+	 * idle or borrowed
+	 * 
+	 * @return the amount of open connections
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getOpenConnections() {
+		return _open.get();
+	}
+	
+	/**
+	 * Get the amount of open connections that are not borrowed
+	 * 
+	 * @return the amount of idle connections
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getIdleConnections() {
+		return _idle.size();
+	}
+	
+	/**
+	 * Get the amount of connections that are currently borrowed
+	 * 
+	 * @return the amount of borrowed connections
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getActiveConnections() {
+		return Math.max(0, _options.maxConnections - _permits.availablePermits());
+	}
+	
+	/**
+	 * Get how saturated this pool is. A value of 1 means every connection is
+	 * borrowed and new callers will have to wait
+	 * 
+	 * @return the amount of borrowed connections divided by the maximum
+	 * @since TacoAPI/Database 3.1
+	 */
+	public double getSaturation() {
+		return (double) getActiveConnections() / Math.max(1, _options.maxConnections);
+	}
+	
+	/**
+	 * Get the amount of threads currently waiting for a connection
+	 * 
+	 * @return the amount of waiting threads
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getWaitingThreads() {
+		return _waiting.get();
+	}
+	
+	/**
+	 * Get how many times a connection has been borrowed from this pool
+	 * 
+	 * @return the amount of successful borrows
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getBorrowCount() {
+		return _borrows.get();
+	}
+	
+	/**
+	 * Get how many times a caller gave up waiting for a connection
+	 * 
+	 * @return the amount of borrow timeouts
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getTimeoutCount() {
+		return _timeouts.get();
+	}
+	
+	/**
+	 * Get the average time a caller waited for a connection
+	 * 
+	 * @return the average wait time, in milliseconds
+	 * @since TacoAPI/Database 3.1
+	 */
+	public double getAverageWaitTime() {
+		long borrows = _borrows.get();
+		return borrows == 0 ? 0 : _waitTime.get() / 1000000D / borrows;
+	}
+	
+	/**
+	 * Get the average time a connection was held by a caller before being
+	 * released
+	 * 
+	 * @return the average borrow time, in milliseconds
+	 * @since TacoAPI/Database 3.1
+	 */
+	public double getAverageBorrowTime() {
+		long borrows = _borrows.get();
+		return borrows == 0 ? 0 : _borrowTime.get() / 1000000D / borrows;
+	}
+	
+	/**
+	 * Get how many times a cached prepared statement was reused
+	 * 
+	 * @return the amount of statement cache hits
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getStatementCacheHits() {
+		return _stmtHits.get();
+	}
+	
+	/**
+	 * Get how many times a statement had to be prepared because it was not
+	 * cached
+	 * 
+	 * @return the amount of statement cache misses
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getStatementCacheMisses() {
+		return _stmtMisses.get();
+	}
+	
+}
@@ -1,15 +1,26 @@
 package com.kill3rtaco.api.database;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Represents a MySQL database. This database system is the only thing that
- * still resembles anything of DeityAPI
+ * still resembles anything of DeityAPI. Queries are run on connections
+ * borrowed from a {@link ConnectionPool}, so a Database can safely be used by
+ * several threads at once.
  * 
  * @author KILL3RTACO
  * @since TacoAPI/Database 2.0
@@ -17,9 +28,16 @@ import java.sql.Types;
  */
 public class Database {
 	
-	private Connection	conn;
-	private String		_sAdd, _dbName, _dbUsr, _dbPass;
-	private int			_sPort;
+	private static final Set<Database>	OPEN		= Collections.newSetFromMap(new WeakHashMap<Database, Boolean>());
+	
+	private ConnectionPool				_pool;
+	private DatabaseExecutor			_executor;
+	private QueryCache					_cache;
+	private DatabaseOptions				_options;
+	private List<BatchWriter>			_writers	= new CopyOnWriteArrayList<BatchWriter>();
+	private ScheduledExecutorService	_writerService;
+	private String						_sAdd, _dbName, _dbUsr, _dbPass;
+	private int							_sPort;
 	
 	/**
 	 * Construct a database object. The required parameters are used to connect
@@ -39,39 +57,62 @@ public class Database {
 	 */
 	public Database(String serverAdress, int serverPort, String dbName,
 			String dbUser, String dbPass) {
-		try {
-			Class.forName("com.mysql.jdbc.Driver").newInstance();
-			_sAdd = serverAdress;
-			_sPort = serverPort;
-			_dbName = dbName;
-			_dbUsr = dbUser;
-			_dbPass = dbPass;
-			connect();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		this(serverAdress, serverPort, dbName, dbUser, dbPass, new DatabaseOptions());
 	}
 	
-	private void connect() throws SQLException {
-		conn = DriverManager.getConnection(getConnectionString());
-	}
-	
-	private void ensureConnection() {
+	/**
+	 * Construct a database object using the given options for its connection
+	 * pool.
+	 * 
+	 * @param serverAdress
+	 *            The MySQL server address
+	 * @param serverPort
+	 *            The MySQL server port
+	 * @param dbName
+	 *            The name of the database
+	 * @param dbUser
+	 *            MySQL username
+	 * @param dbPass
+	 *            MySQL password
+	 * @param options
+	 *            The options for the connection pool
+	 * @since TacoAPI/Database 3.1
+	 * @see DatabaseOptions
+	 */
+	public Database(String serverAdress, int serverPort, String dbName,
+			String dbUser, String dbPass, DatabaseOptions options) {
+		_sAdd = serverAdress;
+		_sPort = serverPort;
+		_dbName = dbName;
+		_dbUsr = dbUser;
+		_dbPass = dbPass;
+		_options = options;
+		_pool = new ConnectionPool(getConnectionString(options), options);
+		_executor = new DatabaseExecutor(options);
+		if (options.queryCacheSize > 0)
+			_cache = new QueryCache(options.queryCacheSize, options.queryCacheTtl);
+		synchronized (OPEN) {
+			OPEN.add(this);
+		}
 		try {
-			if (!this.conn.isValid(5)) {
-				connect();
-			}
-		} catch (SQLException e) {
+			Class.forName("com.mysql.jdbc.Driver").newInstance();
+			_pool.fill();
+		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 	
-	private String getConnectionString() {
-		return "jdbc:mysql://" + _sAdd + ":" + _sPort + "/" + _dbName + "?user=" + _dbUsr + "&password=" + _dbPass;
+	private String getConnectionString(DatabaseOptions options) {
+		String url = "jdbc:mysql://" + _sAdd + ":" + _sPort + "/" + _dbName + "?user=" + _dbUsr + "&password=" + _dbPass;
+		//send batches as multi-row statements instead of one statement per row
+		url += "&rewriteBatchedStatements=true";
+		//only worth preparing on the server if the statements are reused
+		if (options.statementCacheSize > 0)
+			url += "&useServerPrepStmts=true";
+		return url;
 	}
 	
-	private PreparedStatement prepareStatement(String sql, Object[] params) throws SQLException {
-		PreparedStatement stmt = this.conn.prepareStatement(sql);
+	static void setParameters(PreparedStatement stmt, Object[] params) throws SQLException {
 		int counter = 1;
 		for (Object param : params) {
 			if (param instanceof Integer) {
@@ -92,7 +133,53 @@ public class Database {
 				System.out.printf("Database -> Unsupported data type %s", param.getClass().getSimpleName());
 			}
 		}
-		return stmt;
+	}
+	
+	static QueryResults read(PooledConnection conn, String sql, Object[] params) throws SQLException {
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = conn.prepareStatement(sql);
+			setParameters(stmt, params);
+			rs = stmt.executeQuery();
+			return rs == null ? null : new QueryResults(rs);
+		} finally {
+			if (rs != null) {
+				try {
+					rs.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+			conn.releaseStatement(sql, stmt);
+		}
+	}
+	
+	static int write(PooledConnection conn, String sql, Object[] params) throws SQLException {
+		PreparedStatement stmt = null;
+		try {
+			stmt = conn.prepareStatement(sql);
+			setParameters(stmt, params);
+			return stmt.executeUpdate();
+		} finally {
+			conn.releaseStatement(sql, stmt);
+		}
+	}
+	
+	static int[] writeBatch(PooledConnection conn, String sql, List<Object[]> rows) throws SQLException {
+		PreparedStatement stmt = null;
+		try {
+			stmt = conn.prepareStatement(sql);
+			for (Object[] params : rows) {
+				setParameters(stmt, params);
+				stmt.addBatch();
+			}
+			return stmt.executeBatch();
+		} finally {
+			if (stmt != null)
+				stmt.clearBatch();
+			conn.releaseStatement(sql, stmt);
+		}
 	}
 	
 	/**
@@ -106,35 +193,58 @@ public class Database {
 	 * @since TacoAPI/Database 2.0
 	 */
 	public QueryResults read(String sql, Object... params) {
-		ensureConnection();
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-		QueryResults results = null;
 		try {
-			stmt = prepareStatement(sql, params);
-			rs = stmt.executeQuery();
-			if (rs != null) {
-				results = new QueryResults(rs);
-			}
+			return query(sql, params);
 		} catch (SQLException e) {
 			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	//read through the query cache, if there is one
+	private QueryResults query(String sql, Object[] params) throws SQLException {
+		long generation = 0;
+		if (_cache != null) {
+			QueryResults cached = _cache.get(sql, params);
+			if (cached != null)
+				return cached;
+			generation = _cache.getGeneration();
+		}
+		PooledConnection conn = _pool.borrow();
+		try {
+			QueryResults results = read(conn, sql, params);
+			if (_cache != null)
+				_cache.put(sql, params, results, generation);
+			return results;
+		} catch (SQLException e) {
+			conn.checkError(e);
+			throw e;
 		} finally {
-			if (rs != null) {
-				try {
-					rs.close();
-				} catch (SQLException e) {
-					e.printStackTrace();
-				}
-			}
-			if (stmt != null) {
-				try {
-					stmt.close();
-				} catch (SQLException e) {
-					e.printStackTrace();
-				}
-			}
+			_pool.release(conn);
+		}
+	}
+	
+	/**
+	 * Read from the database one row at a time. This should be used instead of
+	 * {@link #read(String, Object...)} for queries that return many rows,
+	 * since only the current row is kept in memory. The returned cursor holds
+	 * on to a connection until it is closed.
+	 * 
+	 * @param sql
+	 *            the query to send
+	 * @param params
+	 *            the parameters to be used
+	 * @return a cursor over the rows received, or null if the query failed
+	 * @since TacoAPI/Database 3.1
+	 * @see QueryCursor
+	 */
+	public QueryCursor stream(String sql, Object... params) {
+		try {
+			return new QueryCursor(_pool, sql, params);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return null;
 		}
-		return results;
 	}
 	
 	/**
@@ -147,12 +257,295 @@ public class Database {
 	 */
 	public void write(String sql, Object... params) {
 		try {
-			ensureConnection();
-			PreparedStatement stmt = prepareStatement(sql, params);
-			stmt.executeUpdate();
+			update(sql, params);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private int update(String sql, Object[] params) throws SQLException {
+		PooledConnection conn = _pool.borrow();
+		try {
+			return write(conn, sql, params);
+		} catch (SQLException e) {
+			conn.checkError(e);
+			throw e;
+		} finally {
+			_pool.release(conn);
+			//even a failed statement may have changed something
+			written(sql);
+		}
+	}
+	
+	/**
+	 * Invalidate whatever a statement may have changed in the query cache
+	 * 
+	 * @param sql
+	 *            the statement that was written
+	 */
+	void written(String sql) {
+		if (_cache != null)
+			_cache.written(sql);
+	}
+	
+	/**
+	 * Read from the database on another thread. The query is run by this
+	 * database's {@link DatabaseExecutor}, so the calling thread (usually the
+	 * main server thread) never waits for the MySQL server. Failures are
+	 * printed; use {@link #readAsync(DatabaseCallback, String, Object...)} to
+	 * handle them.
+	 * 
+	 * @param sql
+	 *            the query to send
+	 * @param params
+	 *            the parameters to be used
+	 * @return the future results of the query
+	 * @since TacoAPI/Database 3.1
+	 */
+	public Future<QueryResults> readAsync(String sql, Object... params) {
+		return readAsync(null, sql, params);
+	}
+	
+	/**
+	 * Read from the database on another thread, and pass the results to a
+	 * callback once they are received
+	 * 
+	 * @param callback
+	 *            the callback to give the results to
+	 * @param sql
+	 *            the query to send
+	 * @param params
+	 *            the parameters to be used
+	 * @return the future results of the query
+	 * @since TacoAPI/Database 3.1
+	 * @see DatabaseExecutor#setCallbackExecutor(java.util.concurrent.Executor)
+	 */
+	public Future<QueryResults> readAsync(DatabaseCallback<QueryResults> callback, final String sql, final Object... params) {
+		return _executor.submit(new Callable<QueryResults>() {
+			
+			@Override
+			public QueryResults call() throws SQLException {
+				return query(sql, params);
+			}
+			
+		}, callback);
+	}
+	
+	/**
+	 * Write to the database on another thread. Failures are printed; use
+	 * {@link #writeAsync(DatabaseCallback, String, Object...)} to handle them.
+	 * 
+	 * @param sql
+	 *            the query to send
+	 * @param params
+	 *            the parameters to be used
+	 * @return the future amount of rows changed
+	 * @since TacoAPI/Database 3.1
+	 */
+	public Future<Integer> writeAsync(String sql, Object... params) {
+		return writeAsync(null, sql, params);
+	}
+	
+	/**
+	 * Write to the database on another thread, and pass the amount of rows
+	 * changed to a callback once it is done
+	 * 
+	 * @param callback
+	 *            the callback to give the amount of rows changed to
+	 * @param sql
+	 *            the query to send
+	 * @param params
+	 *            the parameters to be used
+	 * @return the future amount of rows changed
+	 * @since TacoAPI/Database 3.1
+	 * @see DatabaseExecutor#setCallbackExecutor(java.util.concurrent.Executor)
+	 */
+	public Future<Integer> writeAsync(DatabaseCallback<Integer> callback, final String sql, final Object... params) {
+		return _executor.submit(new Callable<Integer>() {
+			
+			@Override
+			public Integer call() throws SQLException {
+				return update(sql, params);
+			}
+			
+		}, callback);
+	}
+	
+	/**
+	 * Write many rows with the same statement in one round trip. All rows are
+	 * written in a single transaction, so either every row is written or none
+	 * are.
+	 * 
+	 * @param sql
+	 *            the query to send
+	 * @param rows
+	 *            the parameters for each row
+	 * @return the update count of each row, or an empty array if the batch
+	 *         failed
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int[] writeBatch(String sql, List<Object[]> rows) {
+		if (rows.isEmpty())
+			return new int[0];
+		DatabaseTransaction transaction = null;
+		try {
+			transaction = beginTransaction();
+			int[] counts = transaction.writeBatch(sql, rows);
+			transaction.commit();
+			return counts;
 		} catch (SQLException e) {
 			e.printStackTrace();
+			return new int[0];
+		} finally {
+			if (transaction != null)
+				transaction.close();
+		}
+	}
+	
+	/**
+	 * Start a transaction. The transaction holds on to one connection until it
+	 * is closed, so it must always be closed in a finally block:
+	 * 
+	 * <pre>
+	 * DatabaseTransaction t = db.beginTransaction();
+	 * try {
+	 *     t.write(&quot;UPDATE balances SET money = money - ? WHERE player = ?&quot;, 50, from);
+	 *     t.write(&quot;UPDATE balances SET money = money + ? WHERE player = ?&quot;, 50, to);
+	 *     t.commit();
+	 * } finally {
+	 *     t.close(); //rolls back if commit() was not reached
+	 * }
+	 * </pre>
+	 * 
+	 * @return the transaction
+	 * @throws SQLException
+	 *             if no connection could be borrowed
+	 * @since TacoAPI/Database 3.1
+	 * @see DatabaseTransaction
+	 */
+	public DatabaseTransaction beginTransaction() throws SQLException {
+		return new DatabaseTransaction(this, _pool);
+	}
+	
+	/**
+	 * Create a write-behind writer for the given statement. Rows added to the
+	 * writer are queued and written in batches once
+	 * {@link DatabaseOptions#batchSize} rows are queued, every
+	 * {@link DatabaseOptions#flushInterval} milliseconds, and when this
+	 * database is flushed or closed.
+	 * 
+	 * @param sql
+	 *            the statement each row is written with, usually an
+	 *            <code>INSERT ... ON DUPLICATE KEY UPDATE</code> or
+	 *            <code>REPLACE</code>
+	 * @return the writer
+	 * @since TacoAPI/Database 3.1
+	 * @see BatchWriter
+	 */
+	public BatchWriter createBatchWriter(String sql) {
+		BatchWriter writer = new BatchWriter(this, sql, _options.batchSize, _options.flushInterval);
+		_writers.add(writer);
+		return writer;
+	}
+	
+	ScheduledExecutorService getWriterService() {
+		synchronized (_writers) {
+			if (_writerService == null) {
+				_writerService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "TacoAPI-Database-Writer");
+						thread.setDaemon(true);
+						return thread;
+					}
+					
+				});
+			}
+			return _writerService;
+		}
+	}
+	
+	/**
+	 * Write everything queued in this database's batch writers
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 * @see #createBatchWriter(String)
+	 */
+	public void flush() {
+		for (BatchWriter writer : _writers) {
+			writer.flush();
+		}
+	}
+	
+	/**
+	 * Flush every open database. This is called by
+	 * {@link com.kill3rtaco.api.bukkit.plugin.TacoPlugin#onDisable()
+	 * TacoPlugin.onDisable()} so that no queued rows are lost on shutdown.
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	public static void flushAll() {
+		List<Database> open;
+		synchronized (OPEN) {
+			open = new ArrayList<Database>(OPEN);
+		}
+		for (Database db : open) {
+			db.flush();
+		}
+	}
+	
+	/**
+	 * Get the connection pool of this database, which can be used to monitor
+	 * how busy the database is
+	 * 
+	 * @return the connection pool
+	 * @since TacoAPI/Database 3.1
+	 */
+	public ConnectionPool getPool() {
+		return _pool;
+	}
+	
+	/**
+	 * Get the cache that {@link #read(String, Object...)} reads through
+	 * 
+	 * @return the query cache, or null if {@link DatabaseOptions#queryCacheSize}
+	 *         is 0
+	 * @since TacoAPI/Database 3.1
+	 */
+	public QueryCache getQueryCache() {
+		return _cache;
+	}
+	
+	/**
+	 * Get the executor that runs this database's asynchronous queries, which
+	 * can be used to monitor how far behind they are
+	 * 
+	 * @return the executor
+	 * @since TacoAPI/Database 3.1
+	 */
+	public DatabaseExecutor getExecutor() {
+		return _executor;
+	}
+	
+	/**
+	 * Close every connection to the MySQL server. Queued asynchronous queries
+	 * and batch writers are given a chance to finish first. This database
+	 * cannot be used afterwards.
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void close() {
+		_executor.close(_options.borrowTimeout);
+		flush();
+		synchronized (OPEN) {
+			OPEN.remove(this);
+		}
+		synchronized (_writers) {
+			if (_writerService != null)
+				_writerService.shutdownNow();
 		}
+		_pool.close();
 	}
 	
 }
@@ -0,0 +1,37 @@
+package com.kill3rtaco.api.database;
+
+/**
+ * Receives the outcome of an asynchronous query. Callbacks are run by the
+ * callback executor of the database's {@link DatabaseExecutor}, which is the
+ * thread that ran the query unless
+ * {@link DatabaseExecutor#setCallbackExecutor(java.util.concurrent.Executor)}
+ * was used.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ * @see Database#readAsync(DatabaseCallback, String, Object...)
+ * @see Database#writeAsync(DatabaseCallback, String, Object...)
+ *
+ */
+public interface DatabaseCallback<T> {
+	
+	/**
+	 * Called when the query finished
+	 * 
+	 * @param result
+	 *            the result of the query
+	 */
+	public void onSuccess(T result);
+	
+	/**
+	 * Called when the query failed or could not be queued
+	 * 
+	 * @param e
+	 *            why the query failed. This is a
+	 *            {@link java.util.concurrent.RejectedExecutionException
+	 *            RejectedExecutionException} if the query was never run
+	 *            because too many were queued or the database was closed
+	 */
+	public void onFailure(Exception e);
+	
+}
@@ -0,0 +1,28 @@
+package com.kill3rtaco.api.database;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Apply this annotation to a field to choose which column a {@link RowMapper}
+ * fills it from. Fields without this annotation are filled from the column
+ * with the same name, ignoring case and underscores (so the column
+ * <code>last_login</code> fills the field <code>lastLogin</code>).
+ * 
+ * @author KILL3RTACO
+ * @see RowMapper
+ * @since TacoAPI/Database 3.1
+ *
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DatabaseColumn {
+	
+	/**
+	 * The name of the column, or an empty string to ignore this field
+	 */
+	public String value();
+	
+}
@@ -0,0 +1,254 @@
+package com.kill3rtaco.api.database;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the asynchronous queries of a {@link Database} on a bounded set of
+ * threads. Once {@link DatabaseOptions#asyncQueueSize} queries are waiting,
+ * new queries are rejected instead of queued, so that a slow MySQL server
+ * cannot make the queue grow forever.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ *
+ */
+public class DatabaseExecutor {
+	
+	private ThreadPoolExecutor	_executor;
+	private volatile Executor	_callbackExecutor;
+	private AtomicLong			_completed	= new AtomicLong(), _failed = new AtomicLong(), _rejected = new AtomicLong(),
+			_waitTime = new AtomicLong(), _runTime = new AtomicLong();
+	
+	DatabaseExecutor(DatabaseOptions options) {
+		int threads = Math.max(1, options.asyncThreads);
+		_executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, options.asyncQueueSize)), new ThreadFactory() {
+					
+					private AtomicInteger	_count	= new AtomicInteger();
+					
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "TacoAPI-Database-Async-" + _count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+					
+				});
+		//don't keep threads around on servers that rarely query asynchronously
+		_executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * Queue a query. The returned future never throws on submission: if the
+	 * query is rejected, the future fails with a RejectedExecutionException
+	 * and the callback is told so.
+	 * 
+	 * @param query
+	 *            the query to run
+	 * @param callback
+	 *            the callback to run once the query is done, or null
+	 * @return the future result of the query
+	 */
+	<T> Future<T> submit(Callable<T> query, DatabaseCallback<T> callback) {
+		QueryTask<T> task = new QueryTask<T>(query, callback);
+		try {
+			_executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			_rejected.incrementAndGet();
+			task.reject(new RejectedExecutionException(_executor.isShutdown() ? "Database is closed"
+					: "Too many queries queued (" + _executor.getQueue().size() + ")"));
+		}
+		return task;
+	}
+	
+	/**
+	 * Stop accepting queries and wait for the queued ones to finish
+	 * 
+	 * @param timeout
+	 *            how long to wait, in milliseconds
+	 */
+	void close(long timeout) {
+		_executor.shutdown();
+		try {
+			if (!_executor.awaitTermination(timeout, TimeUnit.MILLISECONDS))
+				System.out.printf("Database -> %d asynchronous queries did not finish in time%n", _executor.shutdownNow().size());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			_executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Set the executor callbacks are run by. By default, callbacks are run on
+	 * the thread that ran the query. Plugins that want to use the Bukkit API in
+	 * their callbacks should use a
+	 * {@link com.kill3rtaco.api.bukkit.util.MainThreadExecutor
+	 * MainThreadExecutor}
+	 * 
+	 * @param executor
+	 *            the executor to run callbacks with, or null to run them on
+	 *            the thread that ran the query
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void setCallbackExecutor(Executor executor) {
+		_callbackExecutor = executor;
+	}
+	
+	/**
+	 * Get the amount of queries waiting for a thread
+	 * 
+	 * @return the amount of queued queries
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getQueueDepth() {
+		return _executor.getQueue().size();
+	}
+	
+	/**
+	 * Get the amount of queries currently running
+	 * 
+	 * @return the amount of running queries
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getActiveCount() {
+		return _executor.getActiveCount();
+	}
+	
+	/**
+	 * Get how many queries finished successfully
+	 * 
+	 * @return the amount of completed queries
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getCompletedCount() {
+		return _completed.get();
+	}
+	
+	/**
+	 * Get how many queries failed while running
+	 * 
+	 * @return the amount of failed queries
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getFailedCount() {
+		return _failed.get();
+	}
+	
+	/**
+	 * Get how many queries were rejected because the queue was full or the
+	 * database was closed
+	 * 
+	 * @return the amount of rejected queries
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getRejectedCount() {
+		return _rejected.get();
+	}
+	
+	/**
+	 * Get the average time a query waited in the queue before it was run
+	 * 
+	 * @return the average wait time, in milliseconds
+	 * @since TacoAPI/Database 3.1
+	 */
+	public double getAverageWaitTime() {
+		long runs = _completed.get() + _failed.get();
+		return runs == 0 ? 0 : _waitTime.get() / 1000000D / runs;
+	}
+	
+	/**
+	 * Get the average time a query took to run, including the time spent
+	 * waiting for a connection
+	 * 
+	 * @return the average execution time, in milliseconds
+	 * @since TacoAPI/Database 3.1
+	 */
+	public double getAverageExecutionTime() {
+		long runs = _completed.get() + _failed.get();
+		return runs == 0 ? 0 : _runTime.get() / 1000000D / runs;
+	}
+	
+	private class QueryTask<T> extends FutureTask<T> {
+		
+		private DatabaseCallback<T>	_callback;
+		private long				_queuedAt	= System.nanoTime();
+		
+		QueryTask(Callable<T> query, DatabaseCallback<T> callback) {
+			super(query);
+			_callback = callback;
+		}
+		
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			_waitTime.addAndGet(start - _queuedAt);
+			super.run();
+			_runTime.addAndGet(System.nanoTime() - start);
+		}
+		
+		void reject(RejectedExecutionException e) {
+			setException(e);
+		}
+		
+		@Override
+		protected void done() {
+			if (isCancelled())
+				return;
+			try {
+				T result = get();
+				_completed.incrementAndGet();
+				handle(result, null);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				//rejected queries never ran, so they are counted separately
+				if (!(cause instanceof RejectedExecutionException))
+					_failed.incrementAndGet();
+				handle(null, cause instanceof Exception ? (Exception) cause : e);
+			} catch (InterruptedException e) {
+				//cannot happen, the task is done
+			}
+		}
+		
+		private void handle(final T result, final Exception error) {
+			if (_callback == null) {
+				//nobody else will see it unless the future is checked
+				if (error != null)
+					error.printStackTrace();
+				return;
+			}
+			Runnable run = new Runnable() {
+				
+				@Override
+				public void run() {
+					if (error == null)
+						_callback.onSuccess(result);
+					else
+						_callback.onFailure(error);
+				}
+				
+			};
+			Executor executor = _callbackExecutor;
+			try {
+				if (executor == null)
+					run.run();
+				else
+					executor.execute(run);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,98 @@
+package com.kill3rtaco.api.database;
+
+/**
+ * Represents various options for a Database and its connection pool
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Database 3.1
+ */
+public class DatabaseOptions {
+	
+	/**
+	 * The maximum amount of connections that can be open at once. Once this
+	 * many connections are borrowed, any other caller will wait for one to be
+	 * released. Default: 10
+	 */
+	public int	maxConnections		= 10;
+	
+	/**
+	 * The amount of idle connections the pool tries to keep open, so that a
+	 * burst of queries does not have to wait for new connections. Default: 1
+	 */
+	public int	minIdleConnections	= 1;
+	
+	/**
+	 * How long (in milliseconds) a caller will wait for a connection before
+	 * giving up. Default: 10000
+	 */
+	public long	borrowTimeout		= 10000;
+	
+	/**
+	 * How long (in milliseconds) a connection may sit idle before it is closed,
+	 * as long as at least {@link #minIdleConnections} remain open. Default:
+	 * 300000 (5 minutes)
+	 */
+	public long	idleTimeout			= 300000;
+	
+	/**
+	 * How often (in milliseconds) idle connections are validated and evicted
+	 * in the background. A connection that has been idle for longer than this
+	 * is also validated before it is handed out. Default: 30000
+	 */
+	public long	validationInterval	= 30000;
+	
+	/**
+	 * How long (in seconds) the driver is given to validate a connection.
+	 * Default: 5
+	 */
+	public int	validationTimeout	= 5;
+	
+	/**
+	 * How many prepared statements each connection keeps open for reuse,
+	 * keyed by their SQL text. The least recently used statement is closed
+	 * once a connection has more than this many. Set to 0 to prepare (and
+	 * close) a new statement for every query. Default: 64
+	 */
+	public int	statementCacheSize	= 64;
+	
+	/**
+	 * How many rows a {@link BatchWriter} queues before it writes them in the
+	 * background. Default: 100
+	 */
+	public int	batchSize			= 100;
+	
+	/**
+	 * How often (in milliseconds) a {@link BatchWriter} writes whatever it has
+	 * queued, even if fewer than {@link #batchSize} rows are queued. Default:
+	 * 5000
+	 */
+	public long	flushInterval		= 5000;
+	
+	/**
+	 * How many threads run asynchronous queries, such as
+	 * {@link Database#readAsync(String, Object...)}. Default: 2
+	 */
+	public int	asyncThreads		= 2;
+	
+	/**
+	 * How many asynchronous queries may wait for a thread. Once this many are
+	 * waiting, new ones are rejected. Default: 1000
+	 */
+	public int	asyncQueueSize		= 1000;
+	
+	/**
+	 * How many results {@link Database#read(String, Object...)} may cache. Set
+	 * to 0 to disable the cache. Default: 0
+	 * 
+	 * @see QueryCache
+	 */
+	public int	queryCacheSize		= 0;
+	
+	/**
+	 * How long (in milliseconds) a cached result may be used, even if nothing
+	 * has invalidated it. Default: 5000
+	 */
+	public long	queryCacheTtl		= 5000;
+	
+}
@@ -0,0 +1,189 @@
+package com.kill3rtaco.api.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a transaction on a {@link Database}. Every statement run through
+ * a transaction uses the same connection, and nothing is visible to other
+ * connections until {@link #commit()} is called. A transaction must always be
+ * closed, otherwise its connection is never given back to the pool.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ * @see Database#beginTransaction()
+ *
+ */
+public class DatabaseTransaction {
+	
+	private Database			_db;
+	private ConnectionPool		_pool;
+	private PooledConnection	_conn;
+	private List<String>		_written	= new ArrayList<String>();
+	private boolean				_finished, _closed;
+	
+	DatabaseTransaction(Database db, ConnectionPool pool) throws SQLException {
+		_db = db;
+		_pool = pool;
+		_conn = pool.borrow();
+		try {
+			_conn.getConnection().setAutoCommit(false);
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			pool.release(_conn);
+			throw e;
+		}
+	}
+	
+	private void checkOpen() throws SQLException {
+		if (_closed)
+			throw new SQLException("Transaction is closed");
+	}
+	
+	/**
+	 * Get the database this transaction belongs to
+	 * 
+	 * @return the database
+	 * @since TacoAPI/Database 3.1
+	 */
+	public Database getDatabase() {
+		return _db;
+	}
+	
+	/**
+	 * Read from the database within this transaction
+	 * 
+	 * @param sql
+	 *            the query to send
+	 * @param params
+	 *            the parameters to be used
+	 * @return a QueryResults object representing the data received
+	 * @throws SQLException
+	 *             if the query failed
+	 * @since TacoAPI/Database 3.1
+	 */
+	public QueryResults read(String sql, Object... params) throws SQLException {
+		checkOpen();
+		try {
+			return Database.read(_conn, sql, params);
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Write to the database within this transaction
+	 * 
+	 * @param sql
+	 *            the query to send
+	 * @param params
+	 *            the parameters to be used
+	 * @return the amount of rows changed
+	 * @throws SQLException
+	 *             if the query failed
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int write(String sql, Object... params) throws SQLException {
+		checkOpen();
+		_written.add(sql);
+		try {
+			return Database.write(_conn, sql, params);
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Write many rows with the same statement in one round trip, within this
+	 * transaction
+	 * 
+	 * @param sql
+	 *            the query to send
+	 * @param rows
+	 *            the parameters for each row
+	 * @return the update count of each row
+	 * @throws SQLException
+	 *             if the batch failed
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int[] writeBatch(String sql, List<Object[]> rows) throws SQLException {
+		checkOpen();
+		_written.add(sql);
+		try {
+			return Database.writeBatch(_conn, sql, rows);
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Make every change done in this transaction permanent
+	 * 
+	 * @throws SQLException
+	 *             if the commit failed, in which case the transaction should
+	 *             be considered rolled back
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void commit() throws SQLException {
+		checkOpen();
+		try {
+			_conn.getConnection().commit();
+			_finished = true;
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			throw e;
+		} finally {
+			//other connections only see the changes once they are committed
+			for (String sql : _written) {
+				_db.written(sql);
+			}
+			_written.clear();
+		}
+	}
+	
+	/**
+	 * Undo every change done in this transaction
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void rollback() {
+		if (_closed)
+			return;
+		try {
+			_conn.getConnection().rollback();
+			_written.clear();
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			e.printStackTrace();
+		}
+		_finished = true;
+	}
+	
+	/**
+	 * Close this transaction and give its connection back to the pool. If
+	 * neither {@link #commit()} nor {@link #rollback()} were called, the
+	 * transaction is rolled back. Calling this more than once does nothing.
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	public void close() {
+		if (_closed)
+			return;
+		if (!_finished)
+			rollback();
+		try {
+			_conn.getConnection().setAutoCommit(true);
+		} catch (SQLException e) {
+			//never hand out a connection that is still inside a transaction
+			_conn.invalidate();
+			e.printStackTrace();
+		}
+		_closed = true;
+		_pool.release(_conn);
+	}
+	
+}
@@ -0,0 +1,171 @@
+package com.kill3rtaco.api.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A connection owned by a {@link ConnectionPool}. Only one thread may use a
+ * pooled connection between {@link ConnectionPool#borrow()} and
+ * {@link ConnectionPool#release(PooledConnection)}
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/Database 3.1
+ */
+class PooledConnection {
+	
+	private Connection						_conn;
+	private ConnectionPool					_pool;
+	private Map<String, PreparedStatement>	_statements;
+	private long							_lastUsed, _borrowedAt;
+	private boolean							_broken;
+	
+	PooledConnection(Connection conn, ConnectionPool pool, final int statementCacheSize) {
+		_conn = conn;
+		_pool = pool;
+		_lastUsed = System.currentTimeMillis();
+		if (statementCacheSize > 0) {
+			_statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+				
+				private static final long	serialVersionUID	= 2254927405390446497L;
+				
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+					if (size() <= statementCacheSize)
+						return false;
+					closeStatement(eldest.getValue());
+					return true;
+				}
+				
+			};
+		}
+	}
+	
+	Connection getConnection() {
+		return _conn;
+	}
+	
+	/**
+	 * Get a prepared statement for the given SQL, reusing a cached one if
+	 * possible. The statement must be given back with
+	 * {@link #releaseStatement(String, PreparedStatement)}
+	 * 
+	 * @param sql
+	 *            the SQL of the statement
+	 * @return the statement, with its parameters cleared
+	 * @throws SQLException
+	 *             if the statement could not be prepared
+	 */
+	PreparedStatement prepareStatement(String sql) throws SQLException {
+		if (_statements != null) {
+			PreparedStatement stmt = _statements.get(sql);
+			if (stmt != null && !stmt.isClosed()) {
+				_pool.statementCacheHit();
+				return stmt;
+			}
+		}
+		_pool.statementCacheMiss();
+		PreparedStatement stmt = _conn.prepareStatement(sql);
+		if (_statements != null)
+			_statements.put(sql, stmt);
+		return stmt;
+	}
+	
+	/**
+	 * Give back a statement obtained from {@link #prepareStatement(String)}.
+	 * Cached statements stay open for the next caller, all others are closed
+	 * 
+	 * @param sql
+	 *            the SQL the statement was prepared with
+	 * @param stmt
+	 *            the statement
+	 */
+	void releaseStatement(String sql, PreparedStatement stmt) {
+		if (stmt == null)
+			return;
+		if (_statements != null && _statements.get(sql) == stmt) {
+			try {
+				stmt.clearParameters();
+				return;
+			} catch (SQLException e) {
+				_statements.remove(sql);
+			}
+		}
+		closeStatement(stmt);
+	}
+	
+	private void closeStatement(PreparedStatement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	void borrowed() {
+		_borrowedAt = System.nanoTime();
+	}
+	
+	long returned() {
+		_lastUsed = System.currentTimeMillis();
+		return System.nanoTime() - _borrowedAt;
+	}
+	
+	long idleTime() {
+		return System.currentTimeMillis() - _lastUsed;
+	}
+	
+	/**
+	 * Mark this connection as broken if the given exception was caused by the
+	 * connection itself (SQLState class 08), so that it is not returned to the
+	 * pool
+	 * 
+	 * @param e
+	 *            the exception that was thrown while using this connection
+	 */
+	void checkError(SQLException e) {
+		String state = e.getSQLState();
+		if (state != null && state.startsWith("08"))
+			_broken = true;
+	}
+	
+	void invalidate() {
+		_broken = true;
+	}
+	
+	boolean isBroken() {
+		if (_broken)
+			return true;
+		try {
+			return _conn.isClosed();
+		} catch (SQLException e) {
+			return true;
+		}
+	}
+	
+	boolean validate(int timeout) {
+		try {
+			return !_broken && _conn.isValid(timeout);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+	
+	void close() {
+		if (_statements != null) {
+			for (PreparedStatement stmt : _statements.values()) {
+				closeStatement(stmt);
+			}
+			_statements.clear();
+		}
+		try {
+			_conn.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+	
+}
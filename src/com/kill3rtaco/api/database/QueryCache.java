@@ -0,0 +1,499 @@
+package com.kill3rtaco.api.database;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches the results of {@link Database#read(String, Object...)} by their SQL
+ * and parameters. Results are kept for at most
+ * {@link DatabaseOptions#queryCacheTtl} milliseconds, the least recently used
+ * results are evicted once {@link DatabaseOptions#queryCacheSize} are cached,
+ * and every result read from a table is dropped as soon as a write through the
+ * same Database changes that table.<br/>
+ * <br/>
+ * Only SELECT statements whose tables can be found are cached. Writes whose
+ * tables cannot be found clear the whole cache. Changes made by other
+ * programs (or other Database objects) are only seen once the TTL runs out.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ * @see Database#getQueryCache()
+ *
+ */
+public class QueryCache {
+	
+	private static final String							TABLE		= "`?(?:[\\w$]+`?\\.`?)?([\\w$]+)`?";
+	private static final Pattern						SELECT		= Pattern.compile("^\\s*\\(?\\s*SELECT\\b", Pattern.CASE_INSENSITIVE);
+	private static final Pattern						LOCKING		= Pattern.compile("\\bFOR\\s+UPDATE\\b|\\bLOCK\\s+IN\\s+SHARE\\s+MODE\\b", Pattern.CASE_INSENSITIVE);
+	//JOIN has to match every join FROM stops at, or the tables joined are never invalidated
+	private static final Pattern						FROM		= Pattern.compile("\\bFROM\\s+(.+?)(?=\\bWHERE\\b|\\bGROUP\\b|\\bORDER\\b|\\bLIMIT\\b|\\bHAVING\\b|\\bUNION\\b|\\bFOR\\b|\\bLOCK\\b|\\bSET\\b|\\bUSING\\b|\\b(?:INNER|LEFT|RIGHT|CROSS|NATURAL|OUTER|STRAIGHT_)?JOIN\\b|\\)|;|$)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern						JOIN		= Pattern.compile("\\b(?:STRAIGHT_)?JOIN\\s+" + TABLE, Pattern.CASE_INSENSITIVE);
+	private static final Pattern						NAME		= Pattern.compile("^\\s*" + TABLE);
+	private static final Pattern						INSERT		= Pattern.compile("^\\s*(?:INSERT|REPLACE)\\s+(?:(?:LOW_PRIORITY|DELAYED|HIGH_PRIORITY|IGNORE)\\s+)*(?:INTO\\s+)?" + TABLE, Pattern.CASE_INSENSITIVE);
+	private static final Pattern						UPDATE		= Pattern.compile("^\\s*UPDATE\\s+(?:(?:LOW_PRIORITY|IGNORE)\\s+)*(.+?)\\s+SET\\b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern						DELETE		= Pattern.compile("^\\s*DELETE\\b", Pattern.CASE_INSENSITIVE);
+	private static final Pattern						DDL			= Pattern.compile("^\\s*(?:TRUNCATE|(?:ALTER|DROP|RENAME)\\s+TABLE)\\s+(?:TABLE\\s+)?(?:IF\\s+EXISTS\\s+)?" + TABLE, Pattern.CASE_INSENSITIVE);
+	
+	private int											_maxSize;
+	private long										_ttl;
+	private Map<Key, CachedResult>						_entries;
+	private Map<String, Set<Key>>						_byTable	= new HashMap<String, Set<Key>>();
+	private long										_generation;
+	//the tables and statistics of the most recently read statements, as many as there can be results
+	private Map<String, Query>							_queries;
+	private AtomicLong									_hits		= new AtomicLong(), _misses = new AtomicLong(), _invalidations = new AtomicLong();
+	
+	QueryCache(int maxSize, long ttl) {
+		_maxSize = maxSize;
+		_ttl = ttl;
+		_entries = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+			
+			private static final long	serialVersionUID	= -3011263734402781641L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+				if (size() <= _maxSize)
+					return false;
+				unindex(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+			
+		};
+		_queries = new LinkedHashMap<String, Query>(16, 0.75f, true) {
+			
+			private static final long	serialVersionUID	= 5406349377463711538L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Query> eldest) {
+				return size() > _maxSize;
+			}
+			
+		};
+	}
+	
+	private Query getQuery(String sql) {
+		synchronized (this) {
+			Query query = _queries.get(sql);
+			if (query != null)
+				return query;
+		}
+		//the statement is parsed without holding the lock
+		Query query = new Query(findReadTables(sql));
+		synchronized (this) {
+			Query other = _queries.get(sql);
+			if (other != null)
+				return other;
+			_queries.put(sql, query);
+		}
+		return query;
+	}
+	
+	/**
+	 * Get the tables a statement reads from
+	 * 
+	 * @param sql
+	 *            the statement
+	 * @return the tables (lower case, without database name), or null if the
+	 *         statement should not be cached
+	 */
+	private static Set<String> findReadTables(String sql) {
+		if (!SELECT.matcher(sql).find() || LOCKING.matcher(sql).find())
+			return null;
+		Set<String> found = new HashSet<String>();
+		Matcher m = FROM.matcher(sql);
+		int start = 0;
+		//continue inside each match, so the FROMs of subqueries are found too
+		while (m.find(start)) {
+			addTableList(found, m.group(1));
+			start = m.start(1);
+		}
+		m = JOIN.matcher(sql);
+		while (m.find()) {
+			found.add(m.group(1).toLowerCase(Locale.ENGLISH));
+		}
+		return found.isEmpty() ? null : found;
+	}
+	
+	//a comma separated list of tables, each optionally followed by an alias
+	private static void addTableList(Set<String> tables, String list) {
+		for (String part : list.split(",")) {
+			if (part.trim().startsWith("("))
+				continue; //a subquery, its own FROM is matched separately
+			Matcher m = NAME.matcher(part);
+			if (m.find())
+				tables.add(m.group(1).toLowerCase(Locale.ENGLISH));
+		}
+	}
+	
+	/**
+	 * Get the tables a statement writes to
+	 * 
+	 * @param sql
+	 *            the statement
+	 * @return the tables (lower case, without database name), or null if they
+	 *         could not be found
+	 */
+	static Set<String> getWriteTables(String sql) {
+		Set<String> tables = new HashSet<String>();
+		Matcher m = INSERT.matcher(sql);
+		if (m.find()) {
+			tables.add(m.group(1).toLowerCase(Locale.ENGLISH));
+			return tables;
+		}
+		m = DDL.matcher(sql);
+		if (m.find()) {
+			tables.add(m.group(1).toLowerCase(Locale.ENGLISH));
+			return tables;
+		}
+		m = UPDATE.matcher(sql);
+		if (m.find()) {
+			addTableList(tables, m.group(1).split("(?i)\\b(?:INNER|LEFT|RIGHT|CROSS|STRAIGHT_)?JOIN\\b")[0]);
+		} else if (DELETE.matcher(sql).find()) {
+			m = FROM.matcher(sql);
+			if (m.find())
+				addTableList(tables, m.group(1));
+		} else {
+			return null;
+		}
+		m = JOIN.matcher(sql);
+		while (m.find()) {
+			tables.add(m.group(1).toLowerCase(Locale.ENGLISH));
+		}
+		return tables.isEmpty() ? null : tables;
+	}
+	
+	/**
+	 * Get cached results
+	 * 
+	 * @return the results, or null if they are not cached or expired
+	 */
+	QueryResults get(String sql, Object[] params) {
+		Query query = getQuery(sql);
+		if (query.tables == null)
+			return null;
+		Key key = new Key(sql, params);
+		QueryResults results = null;
+		synchronized (this) {
+			CachedResult entry = _entries.get(key);
+			if (entry != null) {
+				if (entry.expires > System.currentTimeMillis()) {
+					results = entry.results;
+				} else {
+					_entries.remove(key);
+					unindex(key, entry);
+				}
+			}
+		}
+		Stats stats = query.stats;
+		if (results == null) {
+			_misses.incrementAndGet();
+			stats._misses.incrementAndGet();
+		} else {
+			_hits.incrementAndGet();
+			stats._hits.incrementAndGet();
+		}
+		return results;
+	}
+	
+	/**
+	 * Get the current generation of this cache, which changes whenever
+	 * anything is invalidated. This must be taken before a query is sent and
+	 * given to {@link #put(String, Object[], QueryResults, long)}, so that
+	 * results that were read while a write happened are not cached.
+	 * 
+	 * @return the generation
+	 */
+	synchronized long getGeneration() {
+		return _generation;
+	}
+	
+	void put(String sql, Object[] params, QueryResults results, long generation) {
+		Set<String> tables = getQuery(sql).tables;
+		if (tables == null || results == null)
+			return;
+		Key key = new Key(sql, params.clone());
+		synchronized (this) {
+			if (generation != _generation)
+				return;
+			CachedResult old = _entries.put(key, new CachedResult(results, tables, System.currentTimeMillis() + _ttl));
+			if (old != null)
+				unindex(key, old);
+			for (String table : tables) {
+				Set<Key> keys = _byTable.get(table);
+				if (keys == null)
+					_byTable.put(table, keys = new HashSet<Key>());
+				keys.add(key);
+			}
+		}
+	}
+	
+	private void unindex(Key key, CachedResult entry) {
+		for (String table : entry.tables) {
+			Set<Key> keys = _byTable.get(table);
+			if (keys != null) {
+				keys.remove(key);
+				if (keys.isEmpty())
+					_byTable.remove(table);
+			}
+		}
+	}
+	
+	/**
+	 * Invalidate everything a statement may have changed
+	 * 
+	 * @param sql
+	 *            the statement that was written
+	 */
+	void written(String sql) {
+		Set<String> tables = getWriteTables(sql);
+		if (tables == null) {
+			clear();
+		} else {
+			for (String table : tables) {
+				invalidate(table);
+			}
+		}
+	}
+	
+	/**
+	 * Drop every cached result that was read from a table. This should be
+	 * called when the table is changed by something other than the Database
+	 * this cache belongs to.
+	 * 
+	 * @param table
+	 *            the name of the table
+	 * @since TacoAPI/Database 3.1
+	 */
+	public synchronized void invalidate(String table) {
+		_generation++;
+		_invalidations.incrementAndGet();
+		Set<Key> keys = _byTable.remove(table.toLowerCase(Locale.ENGLISH));
+		if (keys == null)
+			return;
+		for (Key key : keys) {
+			CachedResult entry = _entries.remove(key);
+			if (entry != null) {
+				//the entry may also be indexed under the other tables it reads
+				for (String other : entry.tables) {
+					Set<Key> otherKeys = _byTable.get(other);
+					if (otherKeys != null && otherKeys != keys) {
+						otherKeys.remove(key);
+						if (otherKeys.isEmpty())
+							_byTable.remove(other);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Drop every cached result
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	public synchronized void clear() {
+		_generation++;
+		_invalidations.incrementAndGet();
+		_entries.clear();
+		_byTable.clear();
+	}
+	
+	/**
+	 * Get the amount of results currently cached. Expired results are counted
+	 * until they are next looked up or evicted.
+	 * 
+	 * @return the amount of cached results
+	 * @since TacoAPI/Database 3.1
+	 */
+	public synchronized int size() {
+		return _entries.size();
+	}
+	
+	/**
+	 * Get how many reads were answered from this cache
+	 * 
+	 * @return the amount of hits
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getHits() {
+		return _hits.get();
+	}
+	
+	/**
+	 * Get how many cacheable reads had to be sent to the MySQL server
+	 * 
+	 * @return the amount of misses
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getMisses() {
+		return _misses.get();
+	}
+	
+	/**
+	 * Get how many times results were invalidated by a write
+	 * 
+	 * @return the amount of invalidations
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getInvalidations() {
+		return _invalidations.get();
+	}
+	
+	/**
+	 * Get the fraction of cacheable reads that were answered from this cache
+	 * 
+	 * @return the hit ratio, between 0 and 1
+	 * @since TacoAPI/Database 3.1
+	 */
+	public double getHitRatio() {
+		return ratio(_hits.get(), _misses.get());
+	}
+	
+	/**
+	 * Get the statistics of one query
+	 * 
+	 * @param sql
+	 *            the SQL of the query, exactly as it is passed to
+	 *            {@link Database#read(String, Object...)}
+	 * @return the statistics, or null if the query was not read recently or
+	 *         cannot be cached
+	 * @since TacoAPI/Database 3.1
+	 */
+	public synchronized Stats getStats(String sql) {
+		Query query = _queries.get(sql);
+		return query == null || query.tables == null ? null : query.stats;
+	}
+	
+	/**
+	 * Get the statistics of the queries that have been read through this
+	 * cache most recently. Only as many queries as there can be cached results
+	 * are remembered, so the statistics of statements built with their values
+	 * in the SQL are forgotten instead of piling up.
+	 * 
+	 * @return a copy of the statistics, keyed by SQL
+	 * @since TacoAPI/Database 3.1
+	 */
+	public synchronized Map<String, Stats> getAllStats() {
+		Map<String, Stats> stats = new LinkedHashMap<String, Stats>();
+		for (Map.Entry<String, Query> e : _queries.entrySet()) {
+			if (e.getValue().tables != null)
+				stats.put(e.getKey(), e.getValue().stats);
+		}
+		return stats;
+	}
+	
+	private static double ratio(long hits, long misses) {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+	
+	/**
+	 * The hits and misses of a single query
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	public static class Stats {
+		
+		private AtomicLong	_hits	= new AtomicLong(), _misses = new AtomicLong();
+		
+		/**
+		 * Get how many reads of the query were answered from the cache
+		 * 
+		 * @return the amount of hits
+		 * @since TacoAPI/Database 3.1
+		 */
+		public long getHits() {
+			return _hits.get();
+		}
+		
+		/**
+		 * Get how many reads of the query had to be sent to the MySQL server
+		 * 
+		 * @return the amount of misses
+		 * @since TacoAPI/Database 3.1
+		 */
+		public long getMisses() {
+			return _misses.get();
+		}
+		
+		/**
+		 * Get the fraction of reads of the query that were answered from the
+		 * cache
+		 * 
+		 * @return the hit ratio, between 0 and 1
+		 * @since TacoAPI/Database 3.1
+		 */
+		public double getHitRatio() {
+			return ratio(_hits.get(), _misses.get());
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%d hits, %d misses (%.1f%%)", getHits(), getMisses(), getHitRatio() * 100);
+		}
+		
+	}
+	
+	private static class Key {
+		
+		private String		_sql;
+		private Object[]	_params;
+		private int			_hash;
+		
+		Key(String sql, Object[] params) {
+			_sql = sql;
+			_params = params;
+			_hash = 31 * sql.hashCode() + Arrays.hashCode(params);
+		}
+		
+		@Override
+		public int hashCode() {
+			return _hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return _hash == other._hash && _sql.equals(other._sql) && Arrays.equals(_params, other._params);
+		}
+		
+	}
+	
+	private static class Query {
+		
+		final Set<String>	tables;	//null if the statement cannot be cached
+		final Stats			stats	= new Stats();
+		
+		Query(Set<String> tables) {
+			this.tables = tables;
+		}
+		
+	}
+	
+	private static class CachedResult {
+		
+		final QueryResults	results;
+		final Set<String>	tables;
+		final long			expires;
+		
+		CachedResult(QueryResults results, Set<String> tables, long expires) {
+			this.results = results;
+			this.tables = tables;
+			this.expires = expires;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,122 @@
+package com.kill3rtaco.api.database;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The columns of a query. One instance is shared by every row of the query, so
+ * that rows can look up a column's index by name without each holding their
+ * own map.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ *
+ */
+public class QueryColumns {
+	
+	private String[]				_names;
+	private String[]				_classNames;
+	private Map<String, Integer>	_indexes;
+	
+	QueryColumns(ResultSetMetaData meta) throws SQLException {
+		int count = meta.getColumnCount();
+		_names = new String[count];
+		_classNames = new String[count];
+		for (int i = 0; i < count; i++) {
+			_names[i] = meta.getColumnName(i + 1);
+			_classNames[i] = meta.getColumnClassName(i + 1);
+		}
+		buildIndexes();
+	}
+	
+	QueryColumns(String[] names) {
+		_names = names;
+		_classNames = new String[names.length];
+		buildIndexes();
+	}
+	
+	private void buildIndexes() {
+		_indexes = new HashMap<String, Integer>(_names.length * 2);
+		for (int i = _names.length - 1; i >= 0; i--) {
+			//if two columns share a name, the first one wins
+			_indexes.put(_names[i], i);
+		}
+	}
+	
+	/**
+	 * Get the index of a column
+	 * 
+	 * @param columnName
+	 *            the name of the column
+	 * @return the index of the column (starting at 0), or -1 if there is no
+	 *         such column
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int indexOf(String columnName) {
+		Integer index = _indexes.get(columnName);
+		return index == null ? -1 : index;
+	}
+	
+	/**
+	 * Get the amount of columns
+	 * 
+	 * @return the amount of columns
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getColumnCount() {
+		return _names.length;
+	}
+	
+	/**
+	 * Get the name of a column
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the name of the column
+	 * @since TacoAPI/Database 3.1
+	 */
+	public String getColumnName(int index) {
+		return _names[index];
+	}
+	
+	/**
+	 * Get the name of the Java class the driver uses for a column, as given by
+	 * {@link ResultSetMetaData#getColumnClassName(int)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the class name, or null if it is not known
+	 * @since TacoAPI/Database 3.1
+	 */
+	public String getColumnClassName(int index) {
+		return _classNames[index];
+	}
+	
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(_names);
+	}
+	
+	/**
+	 * Two QueryColumns are equal if they have the same column names in the
+	 * same order, which is what {@link RowMapper} uses to reuse its bindings
+	 * across queries.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this)
+			return true;
+		if (!(obj instanceof QueryColumns))
+			return false;
+		return Arrays.equals(_names, ((QueryColumns) obj)._names);
+	}
+	
+	@Override
+	public String toString() {
+		return Arrays.toString(_names);
+	}
+	
+}
@@ -0,0 +1,185 @@
+package com.kill3rtaco.api.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A forward-only cursor over the results of a query. Unlike
+ * {@link QueryResults}, rows are read from the MySQL server one at a time as
+ * the cursor moves, so only the current row is held in memory. The cursor
+ * holds on to one connection until it is closed, so it must always be closed
+ * in a finally block:
+ * 
+ * <pre>
+ * QueryCursor cursor = db.stream(&quot;SELECT player, kills FROM stats ORDER BY kills DESC&quot;);
+ * try {
+ *     while (cursor.next()) {
+ *         QueryResultsRow row = cursor.getRow();
+ *         ...
+ *     }
+ * } finally {
+ *     cursor.close();
+ * }
+ * </pre>
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ * @see Database#stream(String, Object...)
+ *
+ */
+public class QueryCursor implements AutoCloseable, Iterable<QueryResultsRow> {
+	
+	private ConnectionPool		_pool;
+	private PooledConnection	_conn;
+	private PreparedStatement	_stmt;
+	private ResultSet			_set;
+	private QueryColumns		_columns;
+	private QueryResultsRow		_row;
+	private boolean				_closed;
+	
+	QueryCursor(ConnectionPool pool, String sql, Object[] params) throws SQLException {
+		_pool = pool;
+		_conn = pool.borrow();
+		try {
+			//never cached: a streaming statement keeps the connection busy until it is closed
+			_stmt = _conn.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			//tells the MySQL driver to stream rows instead of reading them all at once
+			_stmt.setFetchSize(Integer.MIN_VALUE);
+			Database.setParameters(_stmt, params);
+			_set = _stmt.executeQuery();
+			_columns = new QueryColumns(_set.getMetaData());
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the columns of the query
+	 * 
+	 * @return the columns
+	 * @since TacoAPI/Database 3.1
+	 */
+	public QueryColumns getColumns() {
+		return _columns;
+	}
+	
+	/**
+	 * Move to the next row. The cursor is closed once there are no rows left.
+	 * 
+	 * @return true if there was another row, false if the end was reached
+	 * @throws SQLException
+	 *             if the row could not be read
+	 * @since TacoAPI/Database 3.1
+	 */
+	public boolean next() throws SQLException {
+		if (_closed)
+			return false;
+		try {
+			if (!_set.next()) {
+				_row = null;
+				close();
+				return false;
+			}
+			Object[] values = new Object[_columns.getColumnCount()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = _set.getObject(i + 1);
+			}
+			_row = new QueryResultsRow(_columns, values);
+			return true;
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the row the cursor is on
+	 * 
+	 * @return the current row, or null if {@link #next()} has not been called
+	 *         or the end was reached
+	 * @since TacoAPI/Database 3.1
+	 */
+	public QueryResultsRow getRow() {
+		return _row;
+	}
+	
+	/**
+	 * Get whether this cursor has been closed
+	 * 
+	 * @return true if this cursor was closed
+	 * @since TacoAPI/Database 3.1
+	 */
+	public boolean isClosed() {
+		return _closed;
+	}
+	
+	/**
+	 * Close this cursor and give its connection back to the pool. Calling this
+	 * more than once does nothing.
+	 * 
+	 * @since TacoAPI/Database 3.1
+	 */
+	@Override
+	public void close() {
+		if (_closed)
+			return;
+		_closed = true;
+		try {
+			//closing the statement also closes its result set, discarding any unread rows
+			if (_stmt != null)
+				_stmt.close();
+		} catch (SQLException e) {
+			_conn.checkError(e);
+			e.printStackTrace();
+		}
+		_pool.release(_conn);
+	}
+	
+	/**
+	 * Iterate over the remaining rows. Since rows are only read once, the
+	 * returned iterator consumes this cursor. If a row cannot be read, the
+	 * error is printed and the iteration ends.
+	 */
+	@Override
+	public Iterator<QueryResultsRow> iterator() {
+		return new Iterator<QueryResultsRow>() {
+			
+			private QueryResultsRow	_next;
+			
+			@Override
+			public boolean hasNext() {
+				if (_next == null) {
+					try {
+						if (QueryCursor.this.next())
+							_next = _row;
+					} catch (SQLException e) {
+						e.printStackTrace();
+					}
+				}
+				return _next != null;
+			}
+			
+			@Override
+			public QueryResultsRow next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				QueryResultsRow row = _next;
+				_next = null;
+				return row;
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("QueryCursor cannot be modified");
+			}
+			
+		};
+	}
+	
+}
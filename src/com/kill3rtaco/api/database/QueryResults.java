@@ -3,40 +3,81 @@ package com.kill3rtaco.api.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
- * Represents the results of query sent to the MySQL server
+ * Represents the results of query sent to the MySQL server. Results are
+ * stored by column: integer, long and double columns are kept in primitive
+ * arrays, and every row shares the same {@link QueryColumns}, so large results
+ * take far less memory than a map per row.
  * 
  * @author KILL3RTACO
  *
  */
 public class QueryResults implements Iterable<QueryResultsRow> {
 	
-	private ArrayList<QueryResultsRow>	values;
+	private QueryColumns	_columns;
+	private Column[]		_data;
+	private int				_rows;
 	
 	public QueryResults(ResultSet set) {
-		values = new ArrayList<QueryResultsRow>();
-		ArrayList<String> columns = new ArrayList<String>();
 		try {
-			for (int i = 1; i <= set.getMetaData().getColumnCount(); i++) {
-				columns.add(set.getMetaData().getColumnName(i));
+			_columns = new QueryColumns(set.getMetaData());
+			_data = new Column[_columns.getColumnCount()];
+			for (int i = 0; i < _data.length; i++) {
+				_data[i] = Column.create(_columns.getColumnClassName(i));
 			}
 			while (set.next()) {
-				Map<String, Object> data = new HashMap<String, Object>();
-				for (String column : columns) {
-					data.put(column, set.getObject(column));
+				for (int i = 0; i < _data.length; i++) {
+					_data[i].read(set, i + 1, _rows);
 				}
-				values.add(new QueryResultsRow(data));
+				_rows++;
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
+			if (_columns == null) {
+				_columns = new QueryColumns(new String[0]);
+				_data = new Column[0];
+			}
 		}
 	}
 	
+	/**
+	 * Get the columns of this query
+	 * 
+	 * @return the columns
+	 * @since TacoAPI/Database 3.1
+	 */
+	public QueryColumns getColumns() {
+		return _columns;
+	}
+	
+	/**
+	 * Get a row of this query
+	 * 
+	 * @param index
+	 *            the row
+	 * @return the row
+	 * @throws IndexOutOfBoundsException
+	 *             if there is no such row
+	 * @since TacoAPI/Database 3.1
+	 */
+	public QueryResultsRow getRow(int index) {
+		if (index < 0 || index >= _rows)
+			throw new IndexOutOfBoundsException("Row " + index + " does not exist (" + _rows + " rows)");
+		return new QueryResultsRow(this, index);
+	}
+	
+	Object valueAt(int row, int column) {
+		return _data[column].get(row);
+	}
+	
+	Column column(int column) {
+		return _data[column];
+	}
+	
 	/**
 	 * Gets a boolean from the query.
 	 * 
@@ -48,7 +89,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public boolean getBoolean(int index, String columnName) throws DatabaseException {
-		return values.get(index).getBoolean(columnName);
+		return getRow(index).getBoolean(columnName);
 	}
 	
 	/**
@@ -62,7 +103,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public double getDouble(int index, String columnName) throws DatabaseException {
-		return values.get(index).getDouble(columnName);
+		return getRow(index).getDouble(columnName);
 	}
 	
 	/**
@@ -76,7 +117,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public float getFloat(int index, String columnName) throws DatabaseException {
-		return values.get(index).getFloat(columnName);
+		return getRow(index).getFloat(columnName);
 	}
 	
 	/**
@@ -90,7 +131,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public int getInteger(int index, String columnName) throws DatabaseException {
-		return values.get(index).getInteger(columnName);
+		return getRow(index).getInteger(columnName);
 	}
 	
 	/**
@@ -104,7 +145,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public long getLong(int index, String columnName) throws DatabaseException {
-		return values.get(index).getLong(columnName);
+		return getRow(index).getLong(columnName);
 	}
 	
 	/**
@@ -118,7 +159,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public Object getObject(int index, String columnName) throws DatabaseException {
-		return values.get(index).getObject(columnName);
+		return getRow(index).getObject(columnName);
 	}
 	
 	/**
@@ -132,7 +173,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public short getShort(int index, String columnName) throws DatabaseException {
-		return values.get(index).getShort(columnName);
+		return getRow(index).getShort(columnName);
 	}
 	
 	/**
@@ -146,7 +187,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public String getString(int index, String columnName) throws DatabaseException {
-		return values.get(index).getString(columnName);
+		return getRow(index).getString(columnName);
 	}
 	
 	/**
@@ -160,7 +201,7 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @throws DatabaseException
 	 */
 	public Timestamp getTimestamp(int index, String columnName) throws DatabaseException {
-		return values.get(index).getTimestamp(columnName);
+		return getRow(index).getTimestamp(columnName);
 	}
 	
 	/**
@@ -178,12 +219,153 @@ public class QueryResults implements Iterable<QueryResultsRow> {
 	 * @return the amount of rows
 	 */
 	public int rowCount() {
-		return values.size();
+		return _rows;
 	}
 	
 	@Override
 	public Iterator<QueryResultsRow> iterator() {
-		return values.iterator();
+		return new Iterator<QueryResultsRow>() {
+			
+			private int	_next	= 0;
+			
+			@Override
+			public boolean hasNext() {
+				return _next < _rows;
+			}
+			
+			@Override
+			public QueryResultsRow next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return new QueryResultsRow(QueryResults.this, _next++);
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("QueryResults cannot be modified");
+			}
+			
+		};
+	}
+	
+	/**
+	 * The values of one column. Columns the driver reports as Integer, Long or
+	 * Double are stored unboxed; everything else is stored as given by
+	 * {@link ResultSet#getObject(int)}
+	 */
+	static abstract class Column {
+		
+		protected boolean[]	_nulls	= new boolean[16];
+		
+		static Column create(String className) {
+			if (Integer.class.getName().equals(className))
+				return new IntColumn();
+			else if (Long.class.getName().equals(className))
+				return new LongColumn();
+			else if (Double.class.getName().equals(className))
+				return new DoubleColumn();
+			else
+				return new ObjectColumn();
+		}
+		
+		protected int capacity(int current, int row) {
+			return row < current ? current : Math.max(row + 1, current * 2);
+		}
+		
+		boolean isNull(int row) {
+			return _nulls[row];
+		}
+		
+		abstract void read(ResultSet set, int column, int row) throws SQLException;
+		
+		abstract Object get(int row);
+		
+	}
+	
+	static class IntColumn extends Column {
+		
+		int[]	_values	= new int[16];
+		
+		@Override
+		void read(ResultSet set, int column, int row) throws SQLException {
+			if (row >= _values.length) {
+				_values = Arrays.copyOf(_values, capacity(_values.length, row));
+				_nulls = Arrays.copyOf(_nulls, _values.length);
+			}
+			_values[row] = set.getInt(column);
+			_nulls[row] = set.wasNull();
+		}
+		
+		@Override
+		Object get(int row) {
+			return _nulls[row] ? null : Integer.valueOf(_values[row]);
+		}
+		
+	}
+	
+	static class LongColumn extends Column {
+		
+		long[]	_values	= new long[16];
+		
+		@Override
+		void read(ResultSet set, int column, int row) throws SQLException {
+			if (row >= _values.length) {
+				_values = Arrays.copyOf(_values, capacity(_values.length, row));
+				_nulls = Arrays.copyOf(_nulls, _values.length);
+			}
+			_values[row] = set.getLong(column);
+			_nulls[row] = set.wasNull();
+		}
+		
+		@Override
+		Object get(int row) {
+			return _nulls[row] ? null : Long.valueOf(_values[row]);
+		}
+		
+	}
+	
+	static class DoubleColumn extends Column {
+		
+		double[]	_values	= new double[16];
+		
+		@Override
+		void read(ResultSet set, int column, int row) throws SQLException {
+			if (row >= _values.length) {
+				_values = Arrays.copyOf(_values, capacity(_values.length, row));
+				_nulls = Arrays.copyOf(_nulls, _values.length);
+			}
+			_values[row] = set.getDouble(column);
+			_nulls[row] = set.wasNull();
+		}
+		
+		@Override
+		Object get(int row) {
+			return _nulls[row] ? null : Double.valueOf(_values[row]);
+		}
+		
+	}
+	
+	static class ObjectColumn extends Column {
+		
+		Object[]	_values	= new Object[16];
+		
+		@Override
+		void read(ResultSet set, int column, int row) throws SQLException {
+			if (row >= _values.length)
+				_values = Arrays.copyOf(_values, capacity(_values.length, row));
+			_values[row] = set.getObject(column);
+		}
+		
+		@Override
+		boolean isNull(int row) {
+			return _values[row] == null;
+		}
+		
+		@Override
+		Object get(int row) {
+			return _values[row];
+		}
+		
 	}
 	
 }
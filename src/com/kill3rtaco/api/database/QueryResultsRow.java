@@ -15,10 +15,36 @@ import java.util.Map;
  */
 public class QueryResultsRow {
 	
-	private Map<String, Object>	_data;
+	private QueryColumns	_columns;
+	private QueryResults	_results;
+	private int				_row;
+	private Object[]		_values;
 	
 	public QueryResultsRow(Map<String, Object> data) {
-		_data = data;
+		_columns = new QueryColumns(data.keySet().toArray(new String[data.size()]));
+		_values = data.values().toArray();
+	}
+	
+	//a view of a row stored in a QueryResults, nothing is copied
+	QueryResultsRow(QueryResults results, int row) {
+		_columns = results.getColumns();
+		_results = results;
+		_row = row;
+	}
+	
+	QueryResultsRow(QueryColumns columns, Object[] values) {
+		_columns = columns;
+		_values = values;
+	}
+	
+	/**
+	 * Get the columns of this row
+	 * 
+	 * @return the columns
+	 * @since TacoAPI/Database 3.1
+	 */
+	public QueryColumns getColumns() {
+		return _columns;
 	}
 	
 	/**
@@ -44,17 +70,33 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public boolean getBoolean(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getBoolean(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a boolean from this row by the index of its column. This follows the same
+	 * rules as {@link #getBoolean(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public boolean getBoolean(int index) throws DatabaseException {
+		Object obj = getObject(index);
 		if (obj instanceof Boolean) {
 			return (boolean) obj;
 		} else if (obj instanceof String) {
 			return Boolean.valueOf((String) obj);
 		} else {
 			try {
-				int i = getInteger(columnName);
+				int i = getInteger(index);
 				return i == 1;
 			} catch (DatabaseException e) {
-				throw new DatabaseException("Data in column `" + columnName + "` cannot be  converted/parsed as Boolean");
+				throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` cannot be  converted/parsed as Boolean");
 			}
 		}
 	}
@@ -71,13 +113,29 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public Date getDate(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getDate(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a Date from this row by the index of its column. This follows the same
+	 * rules as {@link #getDate(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public Date getDate(int index) throws DatabaseException {
+		Object obj = getObject(index);
 		if (obj instanceof Date) {
 			return (Date) obj;
 		} else if (obj instanceof String) {
 			return Date.valueOf((String) obj);
 		} else {
-			throw new DatabaseException("Data in column `" + columnName + "` is not instanceof Date");
+			throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` is not instanceof Date");
 		}
 	}
 	
@@ -102,7 +160,31 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public double getDouble(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getDouble(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a double from this row by the index of its column. This follows the same
+	 * rules as {@link #getDouble(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public double getDouble(int index) throws DatabaseException {
+		//read straight from the primitive column, nothing to box or unbox
+		QueryResults.Column column = column(index);
+		if (column != null && !column.isNull(_row)) {
+			if (column instanceof QueryResults.DoubleColumn)
+				return ((QueryResults.DoubleColumn) column)._values[_row];
+			else if (column instanceof QueryResults.IntColumn)
+				return ((QueryResults.IntColumn) column)._values[_row];
+		}
+		Object obj = getObject(index);
 		if (obj instanceof Byte) {
 			return ((Byte) obj).doubleValue();
 		} else if (obj instanceof Double) {
@@ -122,7 +204,7 @@ public class QueryResultsRow {
 				//continue below and throw exception
 			}
 		}
-		throw new DatabaseException("Data in column `" + columnName + "` cannot be  converted/parsed as a Double");
+		throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` cannot be  converted/parsed as a Double");
 	}
 	
 	/**
@@ -146,7 +228,23 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public float getFloat(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getFloat(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a float from this row by the index of its column. This follows the same
+	 * rules as {@link #getFloat(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public float getFloat(int index) throws DatabaseException {
+		Object obj = getObject(index);
 		if (obj instanceof Byte) {
 			return ((Byte) obj).floatValue();
 		} else if (obj instanceof Double) {
@@ -166,7 +264,7 @@ public class QueryResultsRow {
 				//continue below and throw exception
 			}
 		}
-		throw new DatabaseException("Data in column `" + columnName + "` cannot be  converted/parsed as a Float");
+		throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` cannot be  converted/parsed as a Float");
 	}
 	
 	/**
@@ -190,7 +288,27 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public int getInteger(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getInteger(indexOf(columnName));
+	}
+	
+	/**
+	 * Get an int from this row by the index of its column. This follows the same
+	 * rules as {@link #getInteger(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public int getInteger(int index) throws DatabaseException {
+		//read straight from the primitive column, nothing to box or unbox
+		QueryResults.Column column = column(index);
+		if (column instanceof QueryResults.IntColumn && !column.isNull(_row))
+			return ((QueryResults.IntColumn) column)._values[_row];
+		Object obj = getObject(index);
 		if (obj instanceof Byte) {
 			return ((Byte) obj).intValue();
 		} else if (obj instanceof Double) {
@@ -210,7 +328,7 @@ public class QueryResultsRow {
 				//continue below and throw exception
 			}
 		}
-		throw new DatabaseException("Data in column `" + columnName + "` cannot be converted/parsed as an Integer");
+		throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` cannot be converted/parsed as an Integer");
 	}
 	
 	/**
@@ -236,7 +354,31 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public long getLong(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getLong(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a long from this row by the index of its column. This follows the same
+	 * rules as {@link #getLong(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public long getLong(int index) throws DatabaseException {
+		//read straight from the primitive column, nothing to box or unbox
+		QueryResults.Column column = column(index);
+		if (column != null && !column.isNull(_row)) {
+			if (column instanceof QueryResults.LongColumn)
+				return ((QueryResults.LongColumn) column)._values[_row];
+			else if (column instanceof QueryResults.IntColumn)
+				return ((QueryResults.IntColumn) column)._values[_row];
+		}
+		Object obj = getObject(index);
 		if (obj instanceof Byte) {
 			return ((Byte) obj).longValue();
 		} else if (obj instanceof Double) {
@@ -260,7 +402,7 @@ public class QueryResultsRow {
 				//continue below and throw exception
 			}
 		}
-		throw new DatabaseException("Data in column `" + columnName + "` cannot be converted/parsed as a Long");
+		throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` cannot be converted/parsed as a Long");
 	}
 	
 	/**
@@ -280,7 +422,23 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public short getShort(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getShort(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a short from this row by the index of its column. This follows the same
+	 * rules as {@link #getShort(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public short getShort(int index) throws DatabaseException {
+		Object obj = getObject(index);
 		//Cannot convert from Double, BigDecimal, BigInteger, Float, Integer, or Long
 		//The MAX_VALUES of these classes far exceeds that of Short.
 		if (obj instanceof Byte) {
@@ -294,7 +452,7 @@ public class QueryResultsRow {
 				//continue below and throw exception
 			}
 		}
-		throw new DatabaseException("Data in column `" + columnName + "` cannot be converted/parsed as a Short");
+		throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` cannot be converted/parsed as a Short");
 	}
 	
 	/**
@@ -308,7 +466,23 @@ public class QueryResultsRow {
 	 *             if the column does not exist
 	 */
 	public String getString(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getString(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a String from this row by the index of its column. This follows the same
+	 * rules as {@link #getString(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public String getString(int index) throws DatabaseException {
+		Object obj = getObject(index);
 		if (obj instanceof String) {
 			return (String) obj;
 		} else {
@@ -327,13 +501,29 @@ public class QueryResultsRow {
 	 *             assigned/retrieved
 	 */
 	public Timestamp getTimestamp(String columnName) throws DatabaseException {
-		Object obj = getObject(columnName);
+		return getTimestamp(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a Timestamp from this row by the index of its column. This follows the same
+	 * rules as {@link #getTimestamp(String)}
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value
+	 * @throws DatabaseException
+	 *             if the column does not exist or a value cannot be
+	 *             assigned/retrieved
+	 * @since TacoAPI/Database 3.1
+	 */
+	public Timestamp getTimestamp(int index) throws DatabaseException {
+		Object obj = getObject(index);
 		if (obj instanceof Timestamp) {
 			return (Timestamp) obj;
 		} else if (obj instanceof String) {
 			return Timestamp.valueOf((String) obj);
 		} else {
-			throw new DatabaseException("Data in column `" + columnName + "` cannot be converted/parsed as a Timestamp");
+			throw new DatabaseException("Data in column `" + _columns.getColumnName(index) + "` cannot be converted/parsed as a Timestamp");
 		}
 	}
 	
@@ -346,11 +536,46 @@ public class QueryResultsRow {
 	 *             If the column does not exist.
 	 */
 	public Object getObject(String columnName) throws DatabaseException {
-		if (!_data.containsKey(columnName)) {
+		return getObject(indexOf(columnName));
+	}
+	
+	/**
+	 * Get a value from this row by the index of its column
+	 * 
+	 * @param index
+	 *            the index of the column (starting at 0)
+	 * @return the value at the specified column
+	 * @throws DatabaseException
+	 *             If the column does not exist.
+	 * @since TacoAPI/Database 3.1
+	 */
+	public Object getObject(int index) throws DatabaseException {
+		checkIndex(index);
+		return _results == null ? _values[index] : _results.valueAt(_row, index);
+	}
+	
+	//whether a value is null, without boxing primitive columns
+	boolean isNull(int index) throws DatabaseException {
+		QueryResults.Column column = column(index);
+		return column == null ? _values[index] == null : column.isNull(_row);
+	}
+	
+	private int indexOf(String columnName) throws DatabaseException {
+		int index = _columns.indexOf(columnName);
+		if (index < 0)
 			throw new DatabaseException("Column with the name of '" + columnName + "' not found");
-		} else {
-			return _data.get(columnName);
-		}
+		return index;
+	}
+	
+	private void checkIndex(int index) throws DatabaseException {
+		if (index < 0 || index >= _columns.getColumnCount())
+			throw new DatabaseException("Column with the index of " + index + " not found");
+	}
+	
+	//the typed storage of the column, or null if this row is not backed by a QueryResults
+	private QueryResults.Column column(int index) throws DatabaseException {
+		checkIndex(index);
+		return _results == null ? null : _results.column(index);
 	}
 	
 }
@@ -0,0 +1,304 @@
+package com.kill3rtaco.api.database;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps the rows of a query to objects of a class. The class must have a
+ * constructor without parameters (which may be private). Each column fills the
+ * field with the same name, ignoring case and underscores, or the field
+ * annotated with {@link DatabaseColumn}. Columns without a field are ignored,
+ * as are static, final and transient fields.<br/>
+ * <br/>
+ * Fields are set through method handles, and which column sets which field
+ * is worked out once per set of columns, so mapping many rows costs little
+ * more than setting the fields by hand:
+ * 
+ * <pre>
+ * RowMapper&lt;PlayerStats&gt; mapper = RowMapper.of(PlayerStats.class);
+ * List&lt;PlayerStats&gt; top = mapper.mapAll(db.read(&quot;SELECT * FROM stats ORDER BY kills DESC LIMIT 10&quot;));
+ * </pre>
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/Database 3.1
+ *
+ */
+public class RowMapper<T> {
+	
+	private static final ConcurrentMap<Class<?>, RowMapper<?>>	MAPPERS	= new ConcurrentHashMap<Class<?>, RowMapper<?>>();
+	
+	private Class<T>											_type;
+	private MethodHandle										_constructor;
+	private Map<String, Field>									_fields			= new HashMap<String, Field>();
+	private ConcurrentMap<QueryColumns, Binding[]>				_bindings		= new ConcurrentHashMap<QueryColumns, Binding[]>();
+	private volatile Shape										_last;
+	
+	private RowMapper(Class<T> type) {
+		_type = type;
+		try {
+			Constructor<T> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			_constructor = MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException(type.getName() + " does not have a constructor without parameters");
+		}
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				int mod = field.getModifiers();
+				if (Modifier.isStatic(mod) || Modifier.isFinal(mod) || Modifier.isTransient(mod))
+					continue;
+				DatabaseColumn column = field.getAnnotation(DatabaseColumn.class);
+				String name = column == null ? field.getName() : column.value();
+				if (name.isEmpty())
+					continue;
+				//fields of subclasses hide those of their superclasses
+				String key = normalize(name);
+				if (!_fields.containsKey(key))
+					_fields.put(key, field);
+			}
+		}
+	}
+	
+	/**
+	 * Get the mapper for a class. Mappers are cached, so this is cheap to call
+	 * repeatedly.
+	 * 
+	 * @param type
+	 *            the class to map rows to
+	 * @return the mapper
+	 * @throws IllegalArgumentException
+	 *             if the class does not have a constructor without parameters
+	 * @since TacoAPI/Database 3.1
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> RowMapper<T> of(Class<T> type) {
+		RowMapper<?> mapper = MAPPERS.get(type);
+		if (mapper == null) {
+			mapper = new RowMapper<T>(type);
+			RowMapper<?> existing = MAPPERS.putIfAbsent(type, mapper);
+			if (existing != null)
+				mapper = existing;
+		}
+		return (RowMapper<T>) mapper;
+	}
+	
+	private static String normalize(String name) {
+		return name.replace("_", "").toLowerCase(Locale.ENGLISH);
+	}
+	
+	/**
+	 * Get the class this mapper maps rows to
+	 * 
+	 * @return the class
+	 * @since TacoAPI/Database 3.1
+	 */
+	public Class<T> getType() {
+		return _type;
+	}
+	
+	private Binding[] getBindings(QueryColumns columns) throws DatabaseException {
+		//rows of one query share their columns, so this is almost always a hit
+		Shape last = _last;
+		if (last != null && last.columns == columns)
+			return last.bindings;
+		Binding[] bindings = _bindings.get(columns);
+		if (bindings == null) {
+			bindings = bind(columns);
+			_bindings.putIfAbsent(columns, bindings);
+		}
+		_last = new Shape(columns, bindings);
+		return bindings;
+	}
+	
+	private Binding[] bind(QueryColumns columns) throws DatabaseException {
+		List<Binding> bindings = new ArrayList<Binding>();
+		Set<Field> bound = new HashSet<Field>();
+		for (int i = 0; i < columns.getColumnCount(); i++) {
+			Field field = _fields.get(normalize(columns.getColumnName(i)));
+			//if two columns fill the same field, the first one wins
+			if (field == null || !bound.add(field))
+				continue;
+			try {
+				field.setAccessible(true);
+				bindings.add(new Binding(i, field, MethodHandles.lookup().unreflectSetter(field)));
+			} catch (IllegalAccessException e) {
+				throw new DatabaseException("Cannot set field " + field.getName() + " of " + _type.getName());
+			}
+		}
+		return bindings.toArray(new Binding[bindings.size()]);
+	}
+	
+	/**
+	 * Map a row to a new object
+	 * 
+	 * @param row
+	 *            the row to map
+	 * @return the object
+	 * @throws DatabaseException
+	 *             if a value cannot be converted to the type of its field
+	 * @since TacoAPI/Database 3.1
+	 */
+	@SuppressWarnings("unchecked")
+	public T map(QueryResultsRow row) throws DatabaseException {
+		T obj;
+		try {
+			obj = (T) (Object) _constructor.invokeExact();
+		} catch (Throwable t) {
+			throw new DatabaseException("Could not create " + _type.getName() + ": " + t);
+		}
+		for (Binding binding : getBindings(row.getColumns())) {
+			binding.set(obj, row);
+		}
+		return obj;
+	}
+	
+	/**
+	 * Map every row to a new object
+	 * 
+	 * @param rows
+	 *            the rows to map, such as a {@link QueryResults} or a
+	 *            {@link QueryCursor}. If this is null, an empty list is
+	 *            returned
+	 * @return the objects, in the same order as the rows
+	 * @throws DatabaseException
+	 *             if a value cannot be converted to the type of its field
+	 * @since TacoAPI/Database 3.1
+	 */
+	public List<T> mapAll(Iterable<QueryResultsRow> rows) throws DatabaseException {
+		if (rows == null)
+			return new ArrayList<T>();
+		List<T> list = rows instanceof QueryResults ? new ArrayList<T>(((QueryResults) rows).rowCount()) : new ArrayList<T>();
+		for (QueryResultsRow row : rows) {
+			list.add(map(row));
+		}
+		return list;
+	}
+	
+	private static class Shape {
+		
+		final QueryColumns	columns;
+		final Binding[]		bindings;
+		
+		Shape(QueryColumns columns, Binding[] bindings) {
+			this.columns = columns;
+			this.bindings = bindings;
+		}
+		
+	}
+	
+	private enum Kind {
+		INT, LONG, DOUBLE, FLOAT, SHORT, BOOLEAN, OBJECT
+	}
+	
+	private static class Binding {
+		
+		private int				_column;
+		private Field			_field;
+		private Class<?>		_type;
+		private Kind			_kind;
+		private MethodHandle	_setter;
+		
+		Binding(int column, Field field, MethodHandle setter) {
+			_column = column;
+			_field = field;
+			_type = field.getType();
+			if (_type == int.class)
+				_kind = Kind.INT;
+			else if (_type == long.class)
+				_kind = Kind.LONG;
+			else if (_type == double.class)
+				_kind = Kind.DOUBLE;
+			else if (_type == float.class)
+				_kind = Kind.FLOAT;
+			else if (_type == short.class)
+				_kind = Kind.SHORT;
+			else if (_type == boolean.class)
+				_kind = Kind.BOOLEAN;
+			else
+				_kind = Kind.OBJECT;
+			//erase the declaring class so every call site can use invokeExact
+			_setter = setter.asType(MethodType.methodType(void.class, Object.class, _kind == Kind.OBJECT ? Object.class : _type));
+		}
+		
+		void set(Object obj, QueryResultsRow row) throws DatabaseException {
+			try {
+				if (_kind != Kind.OBJECT && row.isNull(_column))
+					return; //leave primitives at their default
+				switch (_kind) {
+					case INT:
+						_setter.invokeExact(obj, row.getInteger(_column));
+						break;
+					case LONG:
+						_setter.invokeExact(obj, row.getLong(_column));
+						break;
+					case DOUBLE:
+						_setter.invokeExact(obj, row.getDouble(_column));
+						break;
+					case FLOAT:
+						_setter.invokeExact(obj, row.getFloat(_column));
+						break;
+					case SHORT:
+						_setter.invokeExact(obj, row.getShort(_column));
+						break;
+					case BOOLEAN:
+						_setter.invokeExact(obj, row.getBoolean(_column));
+						break;
+					default:
+						_setter.invokeExact(obj, convert(row));
+				}
+			} catch (DatabaseException e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new DatabaseException("Could not set field " + _field.getName() + ": " + t);
+			}
+		}
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private Object convert(QueryResultsRow row) throws DatabaseException {
+			if (row.isNull(_column))
+				return null;
+			else if (_type == Integer.class)
+				return row.getInteger(_column);
+			else if (_type == Long.class)
+				return row.getLong(_column);
+			else if (_type == Double.class)
+				return row.getDouble(_column);
+			else if (_type == Float.class)
+				return row.getFloat(_column);
+			else if (_type == Short.class)
+				return row.getShort(_column);
+			else if (_type == Boolean.class)
+				return row.getBoolean(_column);
+			else if (_type == String.class)
+				return row.getString(_column);
+			else if (_type == Date.class)
+				return row.getDate(_column);
+			else if (_type == Timestamp.class)
+				return row.getTimestamp(_column);
+			else if (_type.isEnum())
+				return Enum.valueOf((Class) _type, row.getString(_column));
+			Object value = row.getObject(_column);
+			if (!_type.isInstance(value))
+				throw new DatabaseException("Data in column `" + row.getColumns().getColumnName(_column) + "` cannot be assigned to field "
+						+ _field.getName() + " (" + _type.getSimpleName() + ")");
+			return value;
+		}
+		
+	}
+	
+}
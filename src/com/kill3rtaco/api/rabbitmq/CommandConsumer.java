@@ -0,0 +1,363 @@
+package com.kill3rtaco.api.rabbitmq;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kill3rtaco.api.bukkit.util.ChatUtils;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Receives commands from the command queue of the RabbitMQ server. Commands
+ * are not run on the thread that receives them; they are handed off to a
+ * bounded queue that {@link #drain()} empties, which TacoAPI calls on the main
+ * server thread every tick. A command is only acknowledged once it has been
+ * run, and at most {@link RabbitOptions#prefetch} commands are received
+ * without being acknowledged, so a busy server is never flooded. If the
+ * connection is lost, it is opened again after a delay that doubles with
+ * every failed attempt.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/RabbitMQ 1.1
+ * @see TRabbit#getConsumer()
+ *
+ */
+public class CommandConsumer {
+	
+	private ConnectionFactory			_factory;
+	private RabbitOptions				_options;
+	private ScheduledExecutorService	_io;
+	private BlockingQueue<Command>		_commands;
+	private Connection					_conn;
+	private volatile Channel			_channel;
+	private volatile boolean			_closed;
+	private int							_attempts;
+	private AtomicLong					_received	= new AtomicLong(), _processed = new AtomicLong(), _reconnects = new AtomicLong(),
+			_lag = new AtomicLong(), _maxLag = new AtomicLong();
+	
+	CommandConsumer(ConnectionFactory factory, RabbitOptions options) {
+		_factory = factory;
+		_options = options;
+		_commands = new ArrayBlockingQueue<Command>(Math.max(1, options.prefetch));
+		//every channel operation happens on this thread
+		_io = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TacoAPI-RabbitMQ-Consumer");
+				thread.setDaemon(true);
+				return thread;
+			}
+			
+		});
+	}
+	
+	void start() {
+		_io.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				connect();
+			}
+			
+		});
+	}
+	
+	//runs on the io thread
+	private void connect() {
+		if (_closed)
+			return;
+		try {
+			_conn = _factory.newConnection();
+			Channel channel = _conn.createChannel();
+			channel.basicQos(Math.max(1, _options.prefetch));
+			channel.queueDeclare(TRabbit.COMMAND_TRACK, false, false, false, null);
+			channel.basicConsume(TRabbit.COMMAND_TRACK, false, new Receiver(channel));
+			_channel = channel;
+			_attempts = 0;
+		} catch (Exception e) {
+			System.out.println("RabbitMQ -> Could not connect to the command queue: " + e.getMessage());
+			disconnect();
+			reconnect();
+		}
+	}
+	
+	private void disconnect() {
+		_channel = null;
+		//the server delivers unacknowledged commands again once the channel is closed
+		_commands.clear();
+		if (_conn != null) {
+			try {
+				if (_conn.isOpen())
+					_conn.close();
+			} catch (Exception e) {
+				//the connection is already gone
+			}
+			_conn = null;
+		}
+	}
+	
+	private void reconnect() {
+		if (_closed)
+			return;
+		long delay = Math.min(_options.reconnectMaxDelay, _options.reconnectMinDelay << Math.min(_attempts++, 16));
+		_reconnects.incrementAndGet();
+		_io.schedule(new Runnable() {
+			
+			@Override
+			public void run() {
+				connect();
+			}
+			
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Run queued commands until none are left or
+	 * {@link RabbitOptions#tickBudget} milliseconds have passed. At least one
+	 * command is run if any are queued. This must be called on the main
+	 * server thread.
+	 * 
+	 * @return the amount of commands run
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public int drain() {
+		long start = System.nanoTime();
+		long budget = TimeUnit.MILLISECONDS.toNanos(_options.tickBudget);
+		Command last = null;
+		int count = 0;
+		Command command;
+		while ((command = _commands.poll()) != null) {
+			long lag = System.nanoTime() - command.receivedAt;
+			_lag.addAndGet(lag);
+			if (lag > _maxLag.get())
+				_maxLag.set(lag);
+			try {
+				command.dispatch();
+			} catch (Exception e) {
+				//a broken command must not stop the rest
+				e.printStackTrace();
+			}
+			last = command;
+			count++;
+			if (System.nanoTime() - start >= budget)
+				break;
+		}
+		if (last != null) {
+			_processed.addAndGet(count);
+			ack(last, true);
+		}
+		return count;
+	}
+	
+	//acknowledge a command, and every one before it if multiple is true
+	private void ack(final Command last, final boolean multiple) {
+		if (_io.isShutdown())
+			return; //closing the channel gives unacknowledged commands back anyway
+		_io.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				//tags only mean something on the channel they came from
+				if (last.channel != _channel || !last.channel.isOpen())
+					return;
+				try {
+					last.channel.basicAck(last.deliveryTag, multiple);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			
+		});
+	}
+	
+	/**
+	 * Stop receiving commands and close the connection. Commands that were
+	 * received but not yet run are given back to the server, which will
+	 * deliver them to the next consumer.
+	 * 
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void close() {
+		if (_closed)
+			return;
+		_closed = true;
+		_io.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				disconnect();
+			}
+			
+		});
+		_io.shutdown();
+		try {
+			_io.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Get whether the consumer is currently connected to the command queue
+	 * 
+	 * @return true if connected
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public boolean isConnected() {
+		Channel channel = _channel;
+		return channel != null && channel.isOpen();
+	}
+	
+	/**
+	 * Get the amount of commands waiting to be run on the main thread
+	 * 
+	 * @return the amount of queued commands
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public int getQueuedCommands() {
+		return _commands.size();
+	}
+	
+	/**
+	 * Get how many commands have been received from the server
+	 * 
+	 * @return the amount of received commands
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getReceivedCount() {
+		return _received.get();
+	}
+	
+	/**
+	 * Get how many commands have been run
+	 * 
+	 * @return the amount of run commands
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getProcessedCount() {
+		return _processed.get();
+	}
+	
+	/**
+	 * Get how many times the consumer tried to connect again
+	 * 
+	 * @return the amount of reconnect attempts
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getReconnectCount() {
+		return _reconnects.get();
+	}
+	
+	/**
+	 * Get the average time between a command being received and being run
+	 * 
+	 * @return the average lag, in milliseconds
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public double getAverageLag() {
+		long processed = _processed.get();
+		return processed == 0 ? 0 : _lag.get() / 1000000D / processed;
+	}
+	
+	/**
+	 * Get the longest time a command waited between being received and being
+	 * run
+	 * 
+	 * @return the maximum lag, in milliseconds
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public double getMaxLag() {
+		return _maxLag.get() / 1000000D;
+	}
+	
+	private class Receiver extends DefaultConsumer {
+		
+		Receiver(Channel channel) {
+			super(channel);
+		}
+		
+		@Override
+		public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+			_received.incrementAndGet();
+			Command command = Command.parse(getChannel(), envelope.getDeliveryTag(), new String(body));
+			if (command == null) {
+				//nothing to run, but acknowledge it so it is not redelivered
+				ack(new Command(getChannel(), envelope.getDeliveryTag(), null, null), false);
+				return;
+			}
+			try {
+				//never more than the prefetch count are unacknowledged, so this rarely waits
+				while (!_commands.offer(command, 1, TimeUnit.SECONDS)) {
+					if (_closed)
+						return;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		@Override
+		public void handleShutdownSignal(String consumerTag, ShutdownSignalException sig) {
+			if (_closed || _io.isShutdown())
+				return;
+			System.out.println("RabbitMQ -> Lost connection to the command queue, reconnecting");
+			_io.execute(new Runnable() {
+				
+				@Override
+				public void run() {
+					disconnect();
+					reconnect();
+				}
+				
+			});
+		}
+		
+	}
+	
+	private static class Command {
+		
+		final Channel	channel;
+		final long		deliveryTag, receivedAt = System.nanoTime();
+		final String	cmd;
+		final String[]	args;
+		
+		Command(Channel channel, long deliveryTag, String cmd, String[] args) {
+			this.channel = channel;
+			this.deliveryTag = deliveryTag;
+			this.cmd = cmd;
+			this.args = args;
+		}
+		
+		/**
+		 * Parse a message. The first word is skipped, the second is the
+		 * command and the rest are its arguments.
+		 * 
+		 * @return the command, or null if there is no command in the message
+		 */
+		static Command parse(Channel channel, long deliveryTag, String message) {
+			String[] split = message.trim().split("\\s+");
+			if (split.length < 2)
+				return null;
+			split = ChatUtils.removeFirstArg(split);
+			return new Command(channel, deliveryTag, split[0], ChatUtils.removeFirstArg(split));
+		}
+		
+		void dispatch() {
+			TRabbit.dispatchCommand(cmd, args);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,78 @@
+package com.kill3rtaco.api.rabbitmq;
+
+/**
+ * Represents various options for the connections TRabbit makes to the
+ * RabbitMQ server
+ * 
+ * @author KILL3RTACO
+ * 
+ * @since TacoAPI/RabbitMQ 1.1
+ */
+public class RabbitOptions {
+	
+	/**
+	 * Set to true if the server should confirm every message it receives
+	 * from a {@link RabbitPublisher}. Publishing fails if a message is not
+	 * confirmed within {@link #confirmTimeout} milliseconds. Default: true
+	 */
+	public boolean	publisherConfirms	= true;
+	
+	/**
+	 * How long (in milliseconds) a publisher waits for the server to confirm
+	 * a batch of messages. Default: 5000
+	 */
+	public long		confirmTimeout		= 5000;
+	
+	/**
+	 * The most messages a {@link RabbitPublisher} sends before waiting for the
+	 * server to confirm them, when sending messages queued with
+	 * {@link RabbitPublisher#publishAsync(String, byte[])}. Default: 100
+	 */
+	public int		publishBatchSize	= 100;
+	
+	/**
+	 * How many messages may be waiting to be sent. Once this many are
+	 * waiting, new messages are dropped. Default: 10000
+	 */
+	public int		maxQueuedMessages	= 10000;
+	
+	/**
+	 * The most commands a {@link CommandConsumer} receives before they are
+	 * run and acknowledged. This is also how many commands can wait for the
+	 * main thread at once. Default: 50
+	 */
+	public int		prefetch			= 50;
+	
+	/**
+	 * How long (in milliseconds) {@link CommandConsumer#drain()} may spend
+	 * running commands each tick. Commands left over are run on the next
+	 * tick. Default: 5
+	 */
+	public long		tickBudget			= 5;
+	
+	/**
+	 * How long (in milliseconds) to wait before the first attempt to connect
+	 * again after the connection was lost. The delay doubles with every
+	 * failed attempt. Default: 1000
+	 */
+	public long		reconnectMinDelay	= 1000;
+	
+	/**
+	 * The longest (in milliseconds) to wait between attempts to connect
+	 * again. Default: 60000
+	 */
+	public long		reconnectMaxDelay	= 60000;
+	
+	/**
+	 * How long (in milliseconds) a {@link RabbitRpc} waits for a response to
+	 * a request before it fails. Default: 5000
+	 */
+	public long		rpcTimeout			= 5000;
+	
+	/**
+	 * The id other servers use to send requests to this server. If null, a
+	 * random id is used. Default: null
+	 */
+	public String	serverId			= null;
+	
+}
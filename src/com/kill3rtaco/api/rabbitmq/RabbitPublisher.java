@@ -0,0 +1,372 @@
+package com.kill3rtaco.api.rabbitmq;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+/**
+ * Publishes messages to the RabbitMQ server over one long-lived connection.
+ * Each thread that publishes gets its own channel, which is kept open and
+ * reused, and each queue is only declared once per channel. Messages can be
+ * sent right away with {@link #publish(String, byte[])} or
+ * {@link #publishBatch(String, List)}, or queued with
+ * {@link #publishAsync(String, byte[])} to be sent in batches by a background
+ * thread.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/RabbitMQ 1.1
+ * @see TRabbit#getPublisher()
+ *
+ */
+public class RabbitPublisher {
+	
+	private ConnectionFactory				_factory;
+	private RabbitOptions					_options;
+	private volatile Connection				_conn;
+	private Object							_connLock	= new Object();
+	private ThreadLocal<PublisherChannel>	_channels	= new ThreadLocal<PublisherChannel>();
+	private Set<PublisherChannel>			_open		= Collections.newSetFromMap(new ConcurrentHashMap<PublisherChannel, Boolean>());
+	private BlockingQueue<Message>			_queue;
+	private volatile Thread					_sender;
+	private volatile boolean				_stopping, _closed;
+	private AtomicLong						_published	= new AtomicLong(), _failed = new AtomicLong(), _dropped = new AtomicLong(),
+			_batches = new AtomicLong();
+	
+	RabbitPublisher(ConnectionFactory factory, RabbitOptions options) {
+		_factory = factory;
+		_options = options;
+		_queue = new LinkedBlockingQueue<Message>(Math.max(1, options.maxQueuedMessages));
+	}
+	
+	private Connection connection() throws IOException {
+		Connection conn = _conn;
+		if (conn != null && conn.isOpen())
+			return conn;
+		synchronized (_connLock) {
+			if (_conn == null || !_conn.isOpen()) {
+				try {
+					_conn = _factory.newConnection();
+				} catch (IOException e) {
+					throw e;
+				} catch (Exception e) {
+					//newer clients can also time out
+					throw new IOException("Could not connect to the RabbitMQ server", e);
+				}
+			}
+			return _conn;
+		}
+	}
+	
+	private PublisherChannel channel() throws IOException {
+		Connection conn = connection();
+		PublisherChannel channel = _channels.get();
+		if (channel == null || channel.connection != conn || !channel.channel.isOpen()) {
+			if (channel != null)
+				channel.close();
+			channel = new PublisherChannel(conn, conn.createChannel());
+			if (_options.publisherConfirms)
+				channel.channel.confirmSelect();
+			_channels.set(channel);
+			_open.add(channel);
+		}
+		return channel;
+	}
+	
+	/**
+	 * Send a message, waiting for the server to confirm it if
+	 * {@link RabbitOptions#publisherConfirms} is true
+	 * 
+	 * @param queue
+	 *            the queue to send the message to
+	 * @param body
+	 *            the message
+	 * @throws IOException
+	 *             if the message could not be sent or was not confirmed
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void publish(String queue, byte[] body) throws IOException {
+		publishBatch(queue, Collections.singletonList(body));
+	}
+	
+	/**
+	 * Send several messages, waiting once for the server to confirm all of
+	 * them if {@link RabbitOptions#publisherConfirms} is true
+	 * 
+	 * @param queue
+	 *            the queue to send the messages to
+	 * @param bodies
+	 *            the messages, in the order they should be sent
+	 * @throws IOException
+	 *             if the messages could not be sent or were not confirmed. In
+	 *             this case, some of the messages may have been delivered
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void publishBatch(String queue, List<byte[]> bodies) throws IOException {
+		if (_closed)
+			throw new IOException("Publisher is closed");
+		if (bodies.isEmpty())
+			return;
+		PublisherChannel channel = null;
+		try {
+			channel = channel();
+			if (channel.declared.add(queue))
+				channel.channel.queueDeclare(queue, false, false, false, null);
+			for (byte[] body : bodies) {
+				channel.channel.basicPublish("", queue, null, body);
+			}
+			if (_options.publisherConfirms)
+				channel.channel.waitForConfirmsOrDie(_options.confirmTimeout);
+			_published.addAndGet(bodies.size());
+			_batches.incrementAndGet();
+		} catch (IOException e) {
+			//the channel may be unusable, open a new one next time
+			discard(channel);
+			throw e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			discard(channel);
+			throw new IOException("Interrupted while waiting for confirms", e);
+		} catch (TimeoutException e) {
+			discard(channel);
+			throw new IOException("Messages were not confirmed in time", e);
+		} catch (RuntimeException e) {
+			//such as an AlreadyClosedException when the connection was lost in the meantime
+			discard(channel);
+			throw new IOException("Could not send messages: " + e.getMessage(), e);
+		}
+	}
+	
+	private static void discard(PublisherChannel channel) {
+		if (channel != null)
+			channel.close();
+	}
+	
+	/**
+	 * Queue a message to be sent by a background thread. Queued messages are
+	 * sent in batches of up to {@link RabbitOptions#publishBatchSize}, so this
+	 * is much faster than {@link #publish(String, byte[])} when sending many
+	 * messages, and never blocks the calling thread. Messages sent to the same
+	 * queue are sent in the order they were queued.
+	 * 
+	 * @param queue
+	 *            the queue to send the message to
+	 * @param body
+	 *            the message
+	 * @return true if the message was queued, false if too many messages are
+	 *         waiting or this publisher was closed
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public boolean publishAsync(String queue, byte[] body) {
+		if (_stopping || !_queue.offer(new Message(queue, body))) {
+			_dropped.incrementAndGet();
+			return false;
+		}
+		startSender();
+		return true;
+	}
+	
+	private void startSender() {
+		if (_sender != null)
+			return;
+		synchronized (_connLock) {
+			if (_sender != null)
+				return;
+			_sender = new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					sendQueued();
+				}
+				
+			}, "TacoAPI-RabbitMQ-Publisher");
+			_sender.setDaemon(true);
+			_sender.start();
+		}
+	}
+	
+	//runs on the sender thread until closed and everything is sent
+	private void sendQueued() {
+		List<Message> batch = new ArrayList<Message>();
+		while (!_stopping || !_queue.isEmpty()) {
+			try {
+				Message first = _queue.poll(1, TimeUnit.SECONDS);
+				if (first == null)
+					continue;
+				batch.add(first);
+			} catch (InterruptedException e) {
+				break;
+			}
+			_queue.drainTo(batch, Math.max(1, _options.publishBatchSize) - 1);
+			
+			Map<String, List<byte[]>> byQueue = new LinkedHashMap<String, List<byte[]>>();
+			for (Message message : batch) {
+				List<byte[]> bodies = byQueue.get(message.queue);
+				if (bodies == null)
+					byQueue.put(message.queue, bodies = new ArrayList<byte[]>());
+				bodies.add(message.body);
+			}
+			batch.clear();
+			
+			for (Map.Entry<String, List<byte[]>> e : byQueue.entrySet()) {
+				send(e.getKey(), e.getValue());
+			}
+		}
+	}
+	
+	private void send(String queue, List<byte[]> bodies) {
+		//try once more on a fresh channel, the connection may have been dropped
+		for (int attempt = 1;; attempt++) {
+			try {
+				publishBatch(queue, bodies);
+				return;
+			} catch (IOException | RuntimeException e) {
+				//the sender thread must not die, nothing would send the queued messages anymore
+				if (attempt >= 2 || _closed) {
+					_failed.addAndGet(bodies.size());
+					System.out.printf("RabbitMQ -> Could not send %d messages to '%s': %s%n", bodies.size(), queue, e.getMessage());
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Send every queued message, then close every channel and the connection.
+	 * This publisher cannot be used afterwards.
+	 * 
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void close() {
+		Thread sender;
+		synchronized (_connLock) {
+			_stopping = true;
+			sender = _sender;
+		}
+		if (sender != null) {
+			//let the sender finish what is queued before refusing to publish
+			try {
+				sender.join(_options.confirmTimeout * 2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		_closed = true;
+		for (PublisherChannel channel : new ArrayList<PublisherChannel>(_open)) {
+			channel.close();
+		}
+		synchronized (_connLock) {
+			if (_conn != null) {
+				try {
+					_conn.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				_conn = null;
+			}
+		}
+	}
+	
+	/**
+	 * Get the amount of messages waiting to be sent by the background thread
+	 * 
+	 * @return the amount of queued messages
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public int getQueuedMessages() {
+		return _queue.size();
+	}
+	
+	/**
+	 * Get how many messages were sent (and confirmed, if
+	 * {@link RabbitOptions#publisherConfirms} is true)
+	 * 
+	 * @return the amount of published messages
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getPublishedCount() {
+		return _published.get();
+	}
+	
+	/**
+	 * Get how many queued messages could not be sent
+	 * 
+	 * @return the amount of failed messages
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getFailedCount() {
+		return _failed.get();
+	}
+	
+	/**
+	 * Get how many messages were not queued because the queue was full or
+	 * this publisher was closed
+	 * 
+	 * @return the amount of dropped messages
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getDroppedCount() {
+		return _dropped.get();
+	}
+	
+	/**
+	 * Get the average amount of messages sent per confirm round trip
+	 * 
+	 * @return the average batch size
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public double getAverageBatchSize() {
+		long batches = _batches.get();
+		return batches == 0 ? 0 : (double) _published.get() / batches;
+	}
+	
+	private class PublisherChannel {
+		
+		final Connection	connection;
+		final Channel		channel;
+		final Set<String>	declared	= new HashSet<String>();
+		
+		PublisherChannel(Connection connection, Channel channel) {
+			this.connection = connection;
+			this.channel = channel;
+		}
+		
+		void close() {
+			_open.remove(this);
+			try {
+				if (channel.isOpen())
+					channel.close();
+			} catch (Exception e) {
+				//already broken, nothing left to release
+			}
+		}
+		
+	}
+	
+	private static class Message {
+		
+		final String	queue;
+		final byte[]	body;
+		
+		Message(String queue, byte[] body) {
+			this.queue = queue;
+			this.body = body;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,710 @@
+package com.kill3rtaco.api.rabbitmq;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Sends requests to other servers and answers theirs. Every server listens on
+ * its own request queue (<code>tacomq-request.&lt;server id&gt;</code>) and
+ * its own response queue (<code>tacomq-response.&lt;server id&gt;</code>),
+ * both on one channel. Requests carry a correlation id and the name of the
+ * response queue, so any number of requests can be waiting for a response at
+ * once. Requests never block: they return a Future, and fail with a
+ * {@link TimeoutException} if no response arrives in time. Requests this
+ * server sends to itself are answered without going through RabbitMQ.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/RabbitMQ 1.1
+ * @see TRabbit#getRpc()
+ *
+ */
+public class RabbitRpc {
+	
+	public static final String			REQUEST_TRACK	= "tacomq-request";
+	private static final String			HEADER_METHOD	= "tacomq-method";
+	private static final String			HEADER_SERVER	= "tacomq-server";
+	private static final String			HEADER_ERROR	= "tacomq-error";
+	
+	private ConnectionFactory			_factory;
+	private RabbitOptions				_options;
+	private String						_serverId;
+	private ScheduledExecutorService	_io;
+	private Connection					_conn;
+	private volatile Channel			_channel;
+	private volatile boolean			_closed;
+	private volatile Executor			_callbackExecutor;
+	private int							_attempts;
+	private Map<String, RpcHandler>		_handlers		= new ConcurrentHashMap<String, RpcHandler>();
+	private Map<String, PendingRequest>	_pending		= new ConcurrentHashMap<String, PendingRequest>();
+	private AtomicLong					_ids			= new AtomicLong(), _sent = new AtomicLong(), _succeeded = new AtomicLong(),
+			_failed = new AtomicLong(), _timedOut = new AtomicLong(), _handled = new AtomicLong(), _rtt = new AtomicLong(),
+			_maxRtt = new AtomicLong();
+	
+	RabbitRpc(ConnectionFactory factory, RabbitOptions options, String serverId) {
+		_factory = factory;
+		_options = options;
+		_serverId = serverId;
+		//every channel operation and timeout happens on this thread
+		_io = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TacoAPI-RabbitMQ-RPC");
+				thread.setDaemon(true);
+				return thread;
+			}
+			
+		});
+	}
+	
+	void start() {
+		_io.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				connect();
+			}
+			
+		});
+	}
+	
+	//runs on the io thread
+	private void connect() {
+		if (_closed)
+			return;
+		try {
+			_conn = _factory.newConnection();
+			Channel channel = _conn.createChannel();
+			//both queues belong to this server only and disappear with it
+			channel.queueDeclare(getRequestQueue(_serverId), false, true, true, null);
+			channel.queueDeclare(getResponseQueue(_serverId), false, true, true, null);
+			channel.basicConsume(getRequestQueue(_serverId), true, new RequestReceiver(channel));
+			channel.basicConsume(getResponseQueue(_serverId), true, new ResponseReceiver(channel));
+			_channel = channel;
+			_attempts = 0;
+		} catch (Exception e) {
+			System.out.println("RabbitMQ -> Could not connect the RPC queues: " + e.getMessage());
+			disconnect(new IOException("Could not connect to the RabbitMQ server", e));
+			reconnect();
+		}
+	}
+	
+	private void disconnect(IOException cause) {
+		_channel = null;
+		//the response queue is gone with the connection, so no response can arrive anymore
+		for (PendingRequest request : new ArrayList<PendingRequest>(_pending.values())) {
+			request.fail(cause);
+		}
+		if (_conn != null) {
+			try {
+				if (_conn.isOpen())
+					_conn.close();
+			} catch (Exception e) {
+				//the connection is already gone
+			}
+			_conn = null;
+		}
+	}
+	
+	private void reconnect() {
+		if (_closed)
+			return;
+		long delay = Math.min(_options.reconnectMaxDelay, _options.reconnectMinDelay << Math.min(_attempts++, 16));
+		_io.schedule(new Runnable() {
+			
+			@Override
+			public void run() {
+				connect();
+			}
+			
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Get the name of the queue a server receives requests on
+	 * 
+	 * @param serverId
+	 *            the id of the server
+	 * @return the name of the queue
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public static String getRequestQueue(String serverId) {
+		return REQUEST_TRACK + "." + serverId;
+	}
+	
+	/**
+	 * Get the name of the queue a server receives responses on
+	 * 
+	 * @param serverId
+	 *            the id of the server
+	 * @return the name of the queue
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public static String getResponseQueue(String serverId) {
+		return TRabbit.RESPONSE_TRACK + "." + serverId;
+	}
+	
+	/**
+	 * Get the id of this server, which other servers send requests to
+	 * 
+	 * @return the id of this server
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public String getServerId() {
+		return _serverId;
+	}
+	
+	/**
+	 * Answer requests for a method with a handler. Only one handler can answer
+	 * a method; registering another replaces the previous one.
+	 * 
+	 * @param method
+	 *            the name of the method
+	 * @param handler
+	 *            the handler
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void registerHandler(String method, RpcHandler handler) {
+		_handlers.put(method.toLowerCase(), handler);
+	}
+	
+	/**
+	 * Stop answering requests for a method
+	 * 
+	 * @param method
+	 *            the name of the method
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void unregisterHandler(String method) {
+		_handlers.remove(method.toLowerCase());
+	}
+	
+	/**
+	 * Set the executor handlers and callbacks are run by. By default, they are
+	 * run on the thread that received the request or response. Plugins that
+	 * want to use the Bukkit API in their handlers or callbacks should use a
+	 * {@link com.kill3rtaco.api.bukkit.util.MainThreadExecutor
+	 * MainThreadExecutor}
+	 * 
+	 * @param executor
+	 *            the executor to run handlers and callbacks with, or null to
+	 *            run them on the thread that received the message
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void setCallbackExecutor(Executor executor) {
+		_callbackExecutor = executor;
+	}
+	
+	/**
+	 * Send a request to another server, waiting at most
+	 * {@link RabbitOptions#rpcTimeout} milliseconds for a response
+	 * 
+	 * @param serverId
+	 *            the id of the server to send the request to
+	 * @param method
+	 *            the method to call on that server
+	 * @param body
+	 *            the body of the request
+	 * @return the future response
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public Future<String> request(String serverId, String method, String body) {
+		return request(serverId, method, body, _options.rpcTimeout, null);
+	}
+	
+	/**
+	 * Send a request to another server
+	 * 
+	 * @param serverId
+	 *            the id of the server to send the request to
+	 * @param method
+	 *            the method to call on that server
+	 * @param body
+	 *            the body of the request
+	 * @param timeout
+	 *            how long to wait for a response, in milliseconds
+	 * @param callback
+	 *            the callback to run once a response arrived or the request
+	 *            failed, or null
+	 * @return the future response. It fails with a TimeoutException if no
+	 *         response arrived in time, or with an IOException if the request
+	 *         could not be sent or the other server could not answer it. If
+	 *         the request was sent to this server, the handler is run by the
+	 *         callback executor, so waiting for the response on the thread of
+	 *         that executor only works if the executor runs tasks given on its
+	 *         own thread right away, as a MainThreadExecutor does. Otherwise,
+	 *         the request times out.
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public Future<String> request(final String serverId, final String method, final String body, long timeout, RpcCallback callback) {
+		final PendingRequest request = new PendingRequest(Long.toString(_ids.incrementAndGet()), callback);
+		if (_closed) {
+			request.fail(new IOException("RPC is closed"));
+			return request;
+		}
+		_pending.put(request.id, request);
+		_sent.incrementAndGet();
+		
+		Map<String, Object> headers = new HashMap<String, Object>();
+		headers.put(HEADER_METHOD, method);
+		headers.put(HEADER_SERVER, _serverId);
+		final AMQP.BasicProperties props = new AMQP.BasicProperties.Builder().correlationId(request.id)
+				.replyTo(getResponseQueue(_serverId)).headers(headers)
+				//a request nobody answered in time is not worth delivering
+				.expiration(Long.toString(timeout)).build();
+		final byte[] bytes = body.getBytes();
+		
+		try {
+			request.timeout = _io.schedule(new Runnable() {
+				
+				@Override
+				public void run() {
+					if (request.fail(new TimeoutException("No response from '" + serverId + "'")))
+						_timedOut.incrementAndGet();
+				}
+				
+			}, timeout, TimeUnit.MILLISECONDS);
+			if (serverId.equals(_serverId)) {
+				//a request sent from the thread that runs handlers would otherwise wait for that same thread
+				callback(new Runnable() {
+					
+					@Override
+					public void run() {
+						try {
+							request.complete(handle(method, _serverId, body));
+						} catch (Exception e) {
+							request.fail(new IOException(message(e)));
+						}
+					}
+					
+				});
+				return request;
+			}
+			_io.execute(new Runnable() {
+				
+				@Override
+				public void run() {
+					Channel channel = _channel;
+					if (channel == null || !channel.isOpen()) {
+						request.fail(new IOException("Not connected to the RabbitMQ server"));
+						return;
+					}
+					try {
+						channel.basicPublish("", getRequestQueue(serverId), props, bytes);
+					} catch (IOException e) {
+						request.fail(e);
+					}
+				}
+				
+			});
+		} catch (RuntimeException e) {
+			//the io thread was shut down while sending
+			request.fail(new IOException("RPC is closed", e));
+		}
+		return request;
+	}
+	
+	//runs on the callback executor
+	private void answer(AMQP.BasicProperties props, String body) {
+		final String replyTo = props.getReplyTo();
+		final String correlationId = props.getCorrelationId();
+		Map<String, Object> headers = props.getHeaders();
+		String method = header(headers, HEADER_METHOD), server = header(headers, HEADER_SERVER);
+		
+		String response = null, error = null;
+		try {
+			response = handle(method, server, body);
+		} catch (Exception e) {
+			error = message(e);
+		}
+		if (replyTo == null || correlationId == null)
+			return;
+		
+		AMQP.BasicProperties.Builder builder = new AMQP.BasicProperties.Builder().correlationId(correlationId);
+		if (error != null) {
+			Map<String, Object> replyHeaders = new HashMap<String, Object>();
+			replyHeaders.put(HEADER_ERROR, error);
+			builder.headers(replyHeaders);
+		}
+		final AMQP.BasicProperties replyProps = builder.build();
+		final byte[] bytes = (response == null ? "" : response).getBytes();
+		if (_io.isShutdown())
+			return;
+		_io.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				Channel channel = _channel;
+				if (channel == null || !channel.isOpen())
+					return;
+				try {
+					channel.basicPublish("", replyTo, replyProps, bytes);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			
+		});
+	}
+	
+	//runs on the callback executor
+	private String handle(String method, String server, String body) throws Exception {
+		RpcHandler handler = method == null ? null : _handlers.get(method.toLowerCase());
+		try {
+			if (handler == null)
+				throw new IOException("No handler for '" + method + "'");
+			return handler.handle(server, body);
+		} finally {
+			_handled.incrementAndGet();
+		}
+	}
+	
+	private static String message(Exception e) {
+		return e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+	}
+	
+	private static String header(Map<String, Object> headers, String key) {
+		if (headers == null)
+			return null;
+		Object value = headers.get(key);
+		//the client gives strings back as LongStrings
+		return value == null ? null : value.toString();
+	}
+	
+	private void callback(Runnable run) {
+		Executor executor = _callbackExecutor;
+		try {
+			if (executor == null)
+				run.run();
+			else
+				executor.execute(run);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Stop answering requests, fail every request still waiting for a
+	 * response and close the connection
+	 * 
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public void close() {
+		if (_closed)
+			return;
+		_closed = true;
+		_io.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				disconnect(new IOException("RPC is closed"));
+			}
+			
+		});
+		_io.shutdown();
+		try {
+			_io.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Get whether the request and response queues are currently connected
+	 * 
+	 * @return true if connected
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public boolean isConnected() {
+		Channel channel = _channel;
+		return channel != null && channel.isOpen();
+	}
+	
+	/**
+	 * Get the amount of requests waiting for a response
+	 * 
+	 * @return the amount of pending requests
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public int getPendingCount() {
+		return _pending.size();
+	}
+	
+	/**
+	 * Get how many requests were sent
+	 * 
+	 * @return the amount of sent requests
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getSentCount() {
+		return _sent.get();
+	}
+	
+	/**
+	 * Get how many requests were answered successfully
+	 * 
+	 * @return the amount of successful requests
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getSucceededCount() {
+		return _succeeded.get();
+	}
+	
+	/**
+	 * Get how many requests failed, including the ones that timed out
+	 * 
+	 * @return the amount of failed requests
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getFailedCount() {
+		return _failed.get();
+	}
+	
+	/**
+	 * Get how many requests received no response in time
+	 * 
+	 * @return the amount of timed out requests
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getTimedOutCount() {
+		return _timedOut.get();
+	}
+	
+	/**
+	 * Get how many requests from other servers were answered
+	 * 
+	 * @return the amount of handled requests
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public long getHandledCount() {
+		return _handled.get();
+	}
+	
+	/**
+	 * Get the average time between sending a request and receiving its
+	 * response
+	 * 
+	 * @return the average round trip time, in milliseconds
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public double getAverageRoundTripTime() {
+		long succeeded = _succeeded.get();
+		return succeeded == 0 ? 0 : _rtt.get() / 1000000D / succeeded;
+	}
+	
+	/**
+	 * Get the longest time between sending a request and receiving its
+	 * response
+	 * 
+	 * @return the maximum round trip time, in milliseconds
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public double getMaxRoundTripTime() {
+		return _maxRtt.get() / 1000000D;
+	}
+	
+	private class RequestReceiver extends DefaultConsumer {
+		
+		RequestReceiver(Channel channel) {
+			super(channel);
+		}
+		
+		@Override
+		public void handleDelivery(String consumerTag, Envelope envelope, final AMQP.BasicProperties properties, byte[] body) throws IOException {
+			final String request = new String(body);
+			callback(new Runnable() {
+				
+				@Override
+				public void run() {
+					answer(properties, request);
+				}
+				
+			});
+		}
+		
+		@Override
+		public void handleShutdownSignal(String consumerTag, ShutdownSignalException sig) {
+			if (_closed || _io.isShutdown())
+				return;
+			System.out.println("RabbitMQ -> Lost connection to the RPC queues, reconnecting");
+			_io.execute(new Runnable() {
+				
+				@Override
+				public void run() {
+					//both receivers are told, only reconnect once
+					if (_channel != getChannel())
+						return;
+					disconnect(new IOException("Lost connection to the RabbitMQ server"));
+					reconnect();
+				}
+				
+			});
+		}
+		
+	}
+	
+	private class ResponseReceiver extends DefaultConsumer {
+		
+		ResponseReceiver(Channel channel) {
+			super(channel);
+		}
+		
+		@Override
+		public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+			String id = properties.getCorrelationId();
+			PendingRequest request = id == null ? null : _pending.get(id);
+			if (request == null)
+				return; //timed out already
+			String error = header(properties.getHeaders(), HEADER_ERROR);
+			if (error != null)
+				request.fail(new IOException(error));
+			else
+				request.complete(new String(body));
+		}
+		
+	}
+	
+	private class PendingRequest implements Future<String> {
+		
+		final String				id;
+		final long					sentAt		= System.nanoTime();
+		volatile ScheduledFuture<?>	timeout;
+		private RpcCallback			_callback;
+		private AtomicBoolean		_finished	= new AtomicBoolean();
+		private CountDownLatch		_done		= new CountDownLatch(1);
+		//written once before _done is counted down, and only read after
+		private String				_response;
+		private Exception			_error;
+		private boolean				_cancelled;
+		
+		PendingRequest(String id, RpcCallback callback) {
+			this.id = id;
+			_callback = callback;
+		}
+		
+		//false if the request already finished
+		boolean complete(String response) {
+			if (!_finished.compareAndSet(false, true))
+				return false;
+			_response = response;
+			finish();
+			return true;
+		}
+		
+		//false if the request already finished
+		boolean fail(Exception e) {
+			if (!_finished.compareAndSet(false, true))
+				return false;
+			_error = e;
+			finish();
+			return true;
+		}
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (!_finished.compareAndSet(false, true))
+				return false;
+			_cancelled = true;
+			finish();
+			return true;
+		}
+		
+		@Override
+		public boolean isCancelled() {
+			return isDone() && _cancelled;
+		}
+		
+		@Override
+		public boolean isDone() {
+			return _done.getCount() == 0;
+		}
+		
+		@Override
+		public String get() throws InterruptedException, ExecutionException {
+			_done.await();
+			return result();
+		}
+		
+		@Override
+		public String get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			if (!_done.await(timeout, unit))
+				throw new TimeoutException();
+			return result();
+		}
+		
+		private String result() throws ExecutionException {
+			if (_cancelled)
+				throw new CancellationException();
+			if (_error != null)
+				throw new ExecutionException(_error);
+			return _response;
+		}
+		
+		private void finish() {
+			_done.countDown();
+			_pending.remove(id);
+			ScheduledFuture<?> timeout = this.timeout;
+			if (timeout != null)
+				timeout.cancel(false);
+			if (_cancelled)
+				return;
+			if (_error == null) {
+				final String response = _response;
+				long rtt = System.nanoTime() - sentAt;
+				_succeeded.incrementAndGet();
+				_rtt.addAndGet(rtt);
+				if (rtt > _maxRtt.get())
+					_maxRtt.set(rtt);
+				if (_callback != null) {
+					callback(new Runnable() {
+						
+						@Override
+						public void run() {
+							_callback.onResponse(response);
+						}
+						
+					});
+				}
+			} else {
+				_failed.incrementAndGet();
+				final Exception error = _error;
+				if (_callback != null) {
+					callback(new Runnable() {
+						
+						@Override
+						public void run() {
+							_callback.onFailure(error);
+						}
+						
+					});
+				}
+			}
+		}
+		
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.kill3rtaco.api.rabbitmq;
+
+/**
+ * Receives the outcome of a request sent with
+ * {@link RabbitRpc#request(String, String, String, long, RpcCallback)}.
+ * Callbacks are run by the callback executor of the {@link RabbitRpc}, which
+ * is the thread that received the response unless
+ * {@link RabbitRpc#setCallbackExecutor(java.util.concurrent.Executor)} was
+ * used.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/RabbitMQ 1.1
+ *
+ */
+public interface RpcCallback {
+	
+	/**
+	 * Called when the other server responded
+	 * 
+	 * @param response
+	 *            the response
+	 */
+	public void onResponse(String response);
+	
+	/**
+	 * Called when the request failed
+	 * 
+	 * @param e
+	 *            why the request failed. This is a
+	 *            {@link java.util.concurrent.TimeoutException TimeoutException}
+	 *            if no response arrived in time
+	 */
+	public void onFailure(Exception e);
+	
+}
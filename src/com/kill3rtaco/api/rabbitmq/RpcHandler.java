@@ -0,0 +1,30 @@
+package com.kill3rtaco.api.rabbitmq;
+
+/**
+ * Answers requests other servers send with
+ * {@link RabbitRpc#request(String, String, String)}. Handlers are run by the
+ * callback executor of the {@link RabbitRpc} they are registered with.
+ * 
+ * @author KILL3RTACO
+ * @since TacoAPI/RabbitMQ 1.1
+ * @see RabbitRpc#registerHandler(String, RpcHandler)
+ *
+ */
+public interface RpcHandler {
+	
+	/**
+	 * Answer a request
+	 * 
+	 * @param serverId
+	 *            the id of the server that sent the request
+	 * @param body
+	 *            the body of the request
+	 * @return the response to send back
+	 * @throws Exception
+	 *             if the request could not be answered. The message of the
+	 *             exception is sent back, and the request fails on the server
+	 *             that sent it
+	 */
+	public String handle(String serverId, String body) throws Exception;
+	
+}
@@ -1,17 +1,13 @@
 package com.kill3rtaco.api.rabbitmq;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
-import com.kill3rtaco.api.bukkit.util.ChatUtils;
 import com.kill3rtaco.api.command.TCommandManager;
 import com.kill3rtaco.api.util.LibraryLoader;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
-import com.rabbitmq.client.QueueingConsumer;
 
 public class TRabbit {
 	
@@ -19,105 +15,103 @@ public class TRabbit {
 	public static final String					RESPONSE_TRACK		= "tacomq-response";
 	private static final List<TCommandManager>	_commandManagers	= new ArrayList<TCommandManager>();
 	private static ConnectionFactory			_factory;
+	private static RabbitPublisher				_publisher;
+	private static CommandConsumer				_consumer;
+	private static RabbitRpc					_rpc;
 	
 	public static void init(File rabbitClientJar, final String host) {
+		init(rabbitClientJar, host, new RabbitOptions());
+	}
+	
+	/**
+	 * Connect to the RabbitMQ server and start listening for commands
+	 * 
+	 * @param rabbitClientJar
+	 *            the RabbitMQ client jar to load, if it is not already on the
+	 *            classpath
+	 * @param host
+	 *            the host of the RabbitMQ server
+	 * @param options
+	 *            the options to connect with
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public static void init(File rabbitClientJar, final String host, RabbitOptions options) {
 		if (rabbitClientJar != null && rabbitClientJar.exists())
 			LibraryLoader.addJarToClassPath(rabbitClientJar);
 		_factory = new ConnectionFactory();
 		_factory.setHost(host);
-		(new Thread(new Runnable() {
-			
-			@Override
-			public void run() {
-				Connection conn = null;
-				Channel channel = null;
-				QueueingConsumer consumer;
-				try {
-					conn = _factory.newConnection();
-					channel = conn.createChannel();
-					channel.queueDeclare(COMMAND_TRACK, false, false, false, null);
-					
-					consumer = new QueueingConsumer(channel);
-					channel.basicConsume(COMMAND_TRACK, true, consumer);
-				} catch (Exception e) {
-					e.printStackTrace();
-					closeConnections(conn, channel);
-					return;
-				}
-				
-				//main loop
-				while (true) {
-					QueueingConsumer.Delivery delivery;
-					try {
-						delivery = consumer.nextDelivery();
-					} catch (Exception e) {
-						e.printStackTrace();
-						break;
-					}
-					String message = new String(delivery.getBody());
-					
-//					System.out.println("[TacoAPI/RabbitMQ/CommandTrack] [x] Message received: " + message);
-					
-					String[] split = message.split("\\s+");
-					if (split.length == 0)
-						return;
-					
-					split = ChatUtils.removeFirstArg(split);
-					
-					if (split.length == 0)
-						return;
-					
-					String cmd = split[0];
-					String[] args = ChatUtils.removeFirstArg(split);
-					dispatchCommand(cmd, args);
-					
-				}
-				closeConnections(conn, channel);
-			}
-			
-		})).start();
-	}
-	
-	private static void closeConnections(Connection conn, Channel channel) {
-		try {
-			if (channel != null)
-				channel.close();
-			if (conn != null)
-				conn.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		_publisher = new RabbitPublisher(_factory, options);
+		_consumer = new CommandConsumer(_factory, options);
+		_consumer.start();
+		_rpc = new RabbitRpc(_factory, options, options.serverId == null ? UUID.randomUUID().toString() : options.serverId);
+		_rpc.start();
 	}
 	
 	/**
 	 * Send a message to the RabbitMQ server. Note that the message is sent on
-	 * the command queue.
+	 * the command queue. The message is queued and sent in the background
+	 * over a connection that is kept open, so this never blocks.
 	 * 
 	 * @param message
 	 *            the message (command) to send
 	 * @since TacoAPI/RabbitMQ 1.0
+	 * @see RabbitPublisher#publishAsync(String, byte[])
 	 */
 	public static void sendCommandMessage(String message) {
-		Connection conn = null;
-		Channel channel = null;
-		try {
-			conn = _factory.newConnection();
-			channel = conn.createChannel();
-			channel.queueDeclare(COMMAND_TRACK, false, false, false, null);
-			channel.basicPublish("", COMMAND_TRACK, null, message.getBytes());
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			closeConnections(conn, channel);
-		}
-		
+		if (!_publisher.publishAsync(COMMAND_TRACK, message.getBytes()))
+			System.out.println("RabbitMQ -> Too many messages queued, dropped: " + message);
+	}
+	
+	/**
+	 * Get the publisher used to send messages to the RabbitMQ server
+	 * 
+	 * @return the publisher
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public static RabbitPublisher getPublisher() {
+		return _publisher;
+	}
+	
+	/**
+	 * Get the consumer that receives commands from the RabbitMQ server
+	 * 
+	 * @return the consumer
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public static CommandConsumer getConsumer() {
+		return _consumer;
+	}
+	
+	/**
+	 * Get the RPC used to send requests to other servers and answer theirs
+	 * 
+	 * @return the RPC
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public static RabbitRpc getRpc() {
+		return _rpc;
+	}
+	
+	/**
+	 * Stop receiving commands and requests, send every queued message and
+	 * close the connections to the RabbitMQ server
+	 * 
+	 * @since TacoAPI/RabbitMQ 1.1
+	 */
+	public static void close() {
+		if (_consumer != null)
+			_consumer.close();
+		if (_rpc != null)
+			_rpc.close();
+		if (_publisher != null)
+			_publisher.close();
 	}
 	
 	public static void registerCommandManager(TCommandManager manager) {
 		_commandManagers.add(manager);
 	}
 	
-	private static void dispatchCommand(String cmd, String[] args) {
+	static void dispatchCommand(String cmd, String[] args) {
 		for (TCommandManager m : _commandManagers) {
 			if (m.dispatchCommand(cmd, args))
 				return;
@@ -4,6 +4,7 @@ import java.io.File;
 
 import com.kill3rtaco.api.bukkit.TEcon;
 import com.kill3rtaco.api.bukkit.TWorldEdit;
+import com.kill3rtaco.api.bukkit.util.MainThreadExecutor;
 import com.kill3rtaco.api.database.Database;
 import com.kill3rtaco.api.rabbitmq.TRabbit;
 import com.kill3rtaco.tacoapi.plugin.TacoAPIConfig;
@@ -78,7 +79,9 @@ public final class TacoAPI {
 		
 		try {
 			TacoAPIConfig config = TacoAPIPlugin.config;
-			DB = new Database(config.getMySqlServerAddress(), config.getMySqlServerPort(), config.getDatabaseName(), config.getDatabaseUsername(), config.getDatabasePassword());
+			DB = new Database(config.getMySqlServerAddress(), config.getMySqlServerPort(), config.getDatabaseName(), config.getDatabaseUsername(), config.getDatabasePassword(), config.getDatabaseOptions());
+			//callbacks of asynchronous queries are free to use the Bukkit API
+			DB.getExecutor().setCallbackExecutor(new MainThreadExecutor(TacoAPIPlugin.plugin));
 		} catch (Exception e) {
 			e.printStackTrace();
 			TacoAPIPlugin.chat.out("Could not connect to MySQL server");
@@ -115,7 +118,9 @@ public final class TacoAPI {
 		
 		//RabbitMQ
 		try {
-			TRabbit.init(new File(TacoAPIPlugin.plugin.getDataFolder() + "/lib/rabbitmq-client.jar"), TacoAPIPlugin.config.getRabbitMqHost());
+			TRabbit.init(new File(TacoAPIPlugin.plugin.getDataFolder() + "/lib/rabbitmq-client.jar"), TacoAPIPlugin.config.getRabbitMqHost(), TacoAPIPlugin.config.getRabbitOptions());
+			//requests from other servers are free to use the Bukkit API
+			TRabbit.getRpc().setCallbackExecutor(new MainThreadExecutor(TacoAPIPlugin.plugin));
 			_rabbitOnline = true;
 		} catch (NoClassDefFoundError e) {
 			_rabbitOnline = false;
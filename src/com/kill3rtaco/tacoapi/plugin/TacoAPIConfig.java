@@ -4,6 +4,8 @@ import java.io.File;
 import java.util.UUID;
 
 import com.kill3rtaco.api.config.yml.YamlDocument;
+import com.kill3rtaco.api.database.DatabaseOptions;
+import com.kill3rtaco.api.rabbitmq.RabbitOptions;
 
 public class TacoAPIConfig extends YamlDocument {
 	
@@ -12,8 +14,18 @@ public class TacoAPIConfig extends YamlDocument {
 	private static final String		MYSQL_DB_NAME				= "mysql.database.name";
 	private static final String		MYSQL_DB_USR				= "mysql.database.user";
 	private static final String		MYSQL_DB_PASS				= "mysql.database.pass";
+	private static final String		MYSQL_POOL_MAX				= "mysql.pool.max-connections";
+	private static final String		MYSQL_POOL_MIN_IDLE			= "mysql.pool.min-idle";
+	private static final String		MYSQL_POOL_TIMEOUT			= "mysql.pool.borrow-timeout";
+	private static final String		MYSQL_ASYNC_THREADS			= "mysql.async.threads";
+	private static final String		MYSQL_ASYNC_QUEUE			= "mysql.async.queue-size";
+	private static final String		MYSQL_CACHE_SIZE			= "mysql.cache.size";
+	private static final String		MYSQL_CACHE_TTL				= "mysql.cache.ttl";
 	private static final String		RABBITMQ_HOST				= "rabbitmq.host";
+	private static final String		RABBITMQ_PREFETCH			= "rabbitmq.prefetch";
+	private static final String		RABBITMQ_TICK_BUDGET		= "rabbitmq.tick-budget";
 	private static final String		SERVER_ID					= "server-id";
+	private static final String		CONFIG_BINARY_CACHE			= "config.binary-cache";
 	
 	private static final String		USE_METRICS					= "metrics.use";
 	
@@ -22,7 +34,17 @@ public class TacoAPIConfig extends YamlDocument {
 	private static final String		DEF_MYSQL_DB_NAME			= "minecraft";
 	private static final String		DEF_MYSQL_DB_USER			= "root";
 	private static final String		DEF_MYSQL_DB_PASS			= "root";
+	private static final int		DEF_MYSQL_POOL_MAX			= 10;
+	private static final int		DEF_MYSQL_POOL_MIN_IDLE		= 1;
+	private static final int		DEF_MYSQL_POOL_TIMEOUT		= 10000;
+	private static final int		DEF_MYSQL_ASYNC_THREADS		= 2;
+	private static final int		DEF_MYSQL_ASYNC_QUEUE		= 1000;
+	private static final int		DEF_MYSQL_CACHE_SIZE		= 0;
+	private static final int		DEF_MYSQL_CACHE_TTL			= 5000;
 	private static final String		DEF_RABBITMQ_HOST			= "localhost";
+	private static final int		DEF_RABBITMQ_PREFETCH		= 50;
+	private static final int		DEF_RABBITMQ_TICK_BUDGET	= 5;
+	private static final boolean	DEF_CONFIG_BINARY_CACHE		= false;
 //	private static final String		DEF_SERVER_ID				= "main";
 	
 	private static final boolean	DEF_USE_METRICS				= true;
@@ -34,9 +56,19 @@ public class TacoAPIConfig extends YamlDocument {
 		setDefault(MYSQL_DB_NAME, DEF_MYSQL_DB_NAME);
 		setDefault(MYSQL_DB_USR, DEF_MYSQL_DB_USER);
 		setDefault(MYSQL_DB_PASS, DEF_MYSQL_DB_PASS);
+		setDefault(MYSQL_POOL_MAX, DEF_MYSQL_POOL_MAX);
+		setDefault(MYSQL_POOL_MIN_IDLE, DEF_MYSQL_POOL_MIN_IDLE);
+		setDefault(MYSQL_POOL_TIMEOUT, DEF_MYSQL_POOL_TIMEOUT);
+		setDefault(MYSQL_ASYNC_THREADS, DEF_MYSQL_ASYNC_THREADS);
+		setDefault(MYSQL_ASYNC_QUEUE, DEF_MYSQL_ASYNC_QUEUE);
+		setDefault(MYSQL_CACHE_SIZE, DEF_MYSQL_CACHE_SIZE);
+		setDefault(MYSQL_CACHE_TTL, DEF_MYSQL_CACHE_TTL);
 		setDefault(USE_METRICS, DEF_USE_METRICS);
 		setDefault(RABBITMQ_HOST, DEF_RABBITMQ_HOST);
+		setDefault(RABBITMQ_PREFETCH, DEF_RABBITMQ_PREFETCH);
+		setDefault(RABBITMQ_TICK_BUDGET, DEF_RABBITMQ_TICK_BUDGET);
 		setDefault(SERVER_ID, UUID.randomUUID().toString());
+		setDefault(CONFIG_BINARY_CACHE, DEF_CONFIG_BINARY_CACHE);
 	}
 	
 	public String getServerId() {
@@ -63,10 +95,34 @@ public class TacoAPIConfig extends YamlDocument {
 		return getString(MYSQL_DB_PASS);
 	}
 	
+	public DatabaseOptions getDatabaseOptions() {
+		DatabaseOptions options = new DatabaseOptions();
+		options.maxConnections = getInt(MYSQL_POOL_MAX);
+		options.minIdleConnections = getInt(MYSQL_POOL_MIN_IDLE);
+		options.borrowTimeout = getInt(MYSQL_POOL_TIMEOUT);
+		options.asyncThreads = getInt(MYSQL_ASYNC_THREADS);
+		options.asyncQueueSize = getInt(MYSQL_ASYNC_QUEUE);
+		options.queryCacheSize = getInt(MYSQL_CACHE_SIZE);
+		options.queryCacheTtl = getInt(MYSQL_CACHE_TTL);
+		return options;
+	}
+	
 	public String getRabbitMqHost() {
 		return getString(RABBITMQ_HOST);
 	}
 	
+	public RabbitOptions getRabbitOptions() {
+		RabbitOptions options = new RabbitOptions();
+		options.prefetch = getInt(RABBITMQ_PREFETCH);
+		options.tickBudget = getInt(RABBITMQ_TICK_BUDGET);
+		options.serverId = getServerId();
+		return options;
+	}
+	
+	public boolean useBinaryCache() {
+		return getBoolean(CONFIG_BINARY_CACHE);
+	}
+	
 	public boolean useMetrics() {
 		return getBoolean(USE_METRICS);
 	}
@@ -2,9 +2,16 @@ package com.kill3rtaco.tacoapi.plugin;
 
 import java.io.File;
 
+import org.bukkit.scheduler.BukkitRunnable;
+
 import com.kill3rtaco.api.bukkit.TChat;
+import com.kill3rtaco.api.bukkit.command.tab.TabCompletionListener;
 import com.kill3rtaco.api.bukkit.menu.InventoryMenuListener;
 import com.kill3rtaco.api.bukkit.plugin.TacoPlugin;
+import com.kill3rtaco.api.bukkit.plugin.config.BukkitYamlDocumentListener;
+import com.kill3rtaco.api.bukkit.util.MainThreadExecutor;
+import com.kill3rtaco.api.config.yml.YamlDocument;
+import com.kill3rtaco.api.rabbitmq.TRabbit;
 import com.kill3rtaco.tacoapi.TacoAPI;
 
 public class TacoAPIPlugin extends TacoPlugin {
@@ -17,7 +24,11 @@ public class TacoAPIPlugin extends TacoPlugin {
 	@Override
 	public void onStart() {
 		plugin = this;
+		//documents are changed on the main thread, so they are copied there before being saved in the background
+		YamlDocument.setSnapshotExecutor(new MainThreadExecutor(this));
 		config = new TacoAPIConfig();
+		//plugins that depend on TacoAPI load their configs after this
+		YamlDocument.setUseBinaryCache(config.useBinaryCache());
 		playerData = new File(getDataFolder() + "/playerData");
 		
 		TacoAPI.initLibraries();
@@ -27,7 +38,15 @@ public class TacoAPIPlugin extends TacoPlugin {
 		chat.out("RabbitAPI: " + onOff(TacoAPI.rabbitOnline()));
 		
 		if (TacoAPI.rabbitOnline()) {
-			
+			//commands from other servers use the Bukkit API, so they are run on the main thread
+			new BukkitRunnable() {
+				
+				@Override
+				public void run() {
+					TRabbit.getConsumer().drain();
+				}
+				
+			}.runTaskTimer(this, 1L, 1L);
 		}
 		
 		if (config.useMetrics()) {
@@ -36,11 +55,16 @@ public class TacoAPIPlugin extends TacoPlugin {
 		}
 		
 		registerEvents(new InventoryMenuListener());
+		registerEvents(new BukkitYamlDocumentListener());
+		registerEvents(new TabCompletionListener());
 	}
 	
 	@Override
 	public void onStop() {
-		
+		if (TacoAPI.rabbitOnline())
+			TRabbit.close();
+		if (TacoAPI.getDB() != null)
+			TacoAPI.getDB().close();
 	}
 	
 	private String onOff(boolean enabled) {